@@ -1,9 +1,12 @@
 package com.spring.jpadata;
 
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.r2dbc.spi.ConnectionFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 import org.springframework.context.annotation.Bean;
+import org.springframework.r2dbc.core.DatabaseClient;
 
 import javax.persistence.EntityManager;
 
@@ -11,11 +14,19 @@ import javax.persistence.EntityManager;
 public class JpadataApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(JpadataApplication.class, args);
+        SpringApplication application = new SpringApplication(JpadataApplication.class);
+        application.setApplicationStartup(new BufferingApplicationStartup(4096)); // 기동 단계 기록 -> /actuator/startup
+        application.run(args);
     }
 
     @Bean
     JPAQueryFactory jpaQueryFactory(EntityManager em) {
         return new JPAQueryFactory(em);
     }
+
+    //논블로킹 조회용 (MemberReactiveRepository)
+    @Bean
+    DatabaseClient databaseClient(ConnectionFactory connectionFactory) {
+        return DatabaseClient.create(connectionFactory);
+    }
 }
@@ -0,0 +1,68 @@
+package com.spring.jpadata.analytics;
+
+import java.util.Arrays;
+
+/**
+ * 나이 구간별 회원 수 (구간 시작 나이 = index * bandWidth)
+ * long[] 하나라서 Map<Integer, Long> 처럼 박싱 / 엔트리 객체가 없다
+ * 음수 나이는 0 구간에 넣는다
+ */
+public class AgeBandHistogram {
+
+    private final int bandWidth;
+    private long[] counts = new long[16];
+    private long total;
+
+    public AgeBandHistogram(int bandWidth) {
+        if (bandWidth <= 0) {
+            throw new IllegalArgumentException("bandWidth must be positive: " + bandWidth);
+        }
+        this.bandWidth = bandWidth;
+    }
+
+    public void add(int age) {
+        int band = Math.max(age, 0) / bandWidth;
+        if (band >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(band + 1, counts.length * 2));
+        }
+        counts[band]++;
+        total++;
+    }
+
+    public AgeBandHistogram merge(AgeBandHistogram other) {
+        if (other.bandWidth != bandWidth) {
+            throw new IllegalArgumentException("bandWidth mismatch: " + bandWidth + " vs " + other.bandWidth);
+        }
+        if (other.counts.length > counts.length) {
+            counts = Arrays.copyOf(counts, other.counts.length);
+        }
+        for (int band = 0; band < other.counts.length; band++) {
+            counts[band] += other.counts[band];
+        }
+        total += other.total;
+        return this;
+    }
+
+    public int getBandWidth() {
+        return bandWidth;
+    }
+
+    //age 가 속한 구간의 회원 수
+    public long countOf(int age) {
+        int band = Math.max(age, 0) / bandWidth;
+        return band < counts.length ? counts[band] : 0;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    //마지막으로 값이 있는 구간까지 (index * bandWidth 가 구간 시작 나이)
+    public long[] toArray() {
+        int last = counts.length - 1;
+        while (last >= 0 && counts[last] == 0) {
+            last--;
+        }
+        return Arrays.copyOf(counts, last + 1);
+    }
+}
@@ -0,0 +1,75 @@
+package com.spring.jpadata.analytics;
+
+import com.spring.jpadata.dto.MemberTeamDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.IntSummaryStatistics;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 메모리에 올린 member 목록 집계 (나이 통계, team 별 합계, 나이 구간 히스토그램)
+ * - IntStream / primitive 컨테이너로 집계 -> map(MemberTeamDto::getAge).reduce(Integer::sum) 같은 박싱이 없다
+ * - parallelThreshold 이상이면 전용 ForkJoinPool 에서 병렬 스트림 (공용 풀을 쓰는 다른 작업과 섞이지 않는다)
+ *   작으면 스레드 분배 비용이 더 커서 순차로 돈다
+ * - ArrayList 같은 RandomAccess 목록은 SIZED/SUBSIZED spliterator 로 반씩 고르게 나뉜다
+ *   LinkedList 등은 배열로 복사한 뒤 나눈다 (순차 spliterator 는 앞에서부터 조금씩 떼어내서 병렬이 잘 안 된다)
+ * 벤치마크: MemberAnalyticsBenchmark (./gradlew benchmark)
+ */
+@Component
+public class MemberAnalytics {
+
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+
+    public MemberAnalytics(@Value("${jpadata.analytics.parallelism:0}") int parallelism,
+                           @Value("${jpadata.analytics.parallel-threshold:10000}") int parallelThreshold) {
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    public IntSummaryStatistics ageStatistics(List<MemberTeamDto> members) {
+        return run(members, stream -> stream.mapToInt(MemberTeamDto::getAge).summaryStatistics());
+    }
+
+    public long ageSum(List<MemberTeamDto> members) {
+        return run(members, stream -> stream.mapToLong(MemberTeamDto::getAge).sum());
+    }
+
+    public TeamAgeTotals byTeam(List<MemberTeamDto> members) {
+        return run(members, stream -> stream.collect(MemberCollectors.byTeam()));
+    }
+
+    public AgeBandHistogram ageBands(List<MemberTeamDto> members, int bandWidth) {
+        return run(members, stream -> stream.collect(MemberCollectors.ageBands(bandWidth)));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private <R> R run(List<MemberTeamDto> members, Function<Stream<MemberTeamDto>, R> aggregation) {
+        if (members.size() < parallelThreshold) {
+            return aggregation.apply(members.stream());
+        }
+        Stream<MemberTeamDto> stream = StreamSupport.stream(spliterator(members), true);
+        //병렬 스트림은 호출한 스레드가 속한 ForkJoinPool 에서 돈다
+        return pool.submit(() -> aggregation.apply(stream)).join();
+    }
+
+    static Spliterator<MemberTeamDto> spliterator(List<MemberTeamDto> members) {
+        if (members instanceof RandomAccess) {
+            return members.spliterator();
+        }
+        return Spliterators.spliterator(members.toArray(), Spliterator.ORDERED | Spliterator.IMMUTABLE);
+    }
+}
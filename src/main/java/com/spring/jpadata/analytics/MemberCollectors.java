@@ -0,0 +1,36 @@
+package com.spring.jpadata.analytics;
+
+import com.spring.jpadata.dto.MemberTeamDto;
+
+import java.util.stream.Collector;
+
+/**
+ * List<MemberTeamDto> 집계용 Collector (결과 컨테이너가 primitive 배열이라 박싱이 없다)
+ * 병렬 스트림이면 스레드마다 컨테이너를 만들고 merge 로 합친다
+ * Collectors.groupingBy(..., counting()) 대신 사용
+ */
+public final class MemberCollectors {
+
+    private MemberCollectors() {
+    }
+
+    //team 별 회원 수, 나이 합계
+    public static Collector<MemberTeamDto, ?, TeamAgeTotals> byTeam() {
+        return Collector.of(
+                TeamAgeTotals::new,
+                (totals, member) -> totals.add(member.getTeamId(), member.getAge()),
+                TeamAgeTotals::merge,
+                Collector.Characteristics.IDENTITY_FINISH,
+                Collector.Characteristics.UNORDERED);
+    }
+
+    //나이 구간별 회원 수
+    public static Collector<MemberTeamDto, ?, AgeBandHistogram> ageBands(int bandWidth) {
+        return Collector.of(
+                () -> new AgeBandHistogram(bandWidth),
+                (histogram, member) -> histogram.add(member.getAge()),
+                AgeBandHistogram::merge,
+                Collector.Characteristics.IDENTITY_FINISH,
+                Collector.Characteristics.UNORDERED);
+    }
+}
@@ -0,0 +1,151 @@
+package com.spring.jpadata.analytics;
+
+import java.util.Arrays;
+
+/**
+ * team id -> 회원 수, 나이 합계 (open addressing, long 키 / 값 배열)
+ * Map<Long, ...> 로 묶으면 회원마다 Long 박싱 + 엔트리 객체가 생긴다
+ * 팀이 없는 회원은 따로 센다
+ */
+public class TeamAgeTotals {
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private boolean[] used;
+    private long[] counts;
+    private long[] ageSums;
+    private int size;
+
+    private long noTeamCount;
+    private long noTeamAgeSum;
+
+    public TeamAgeTotals() {
+        this(16);
+    }
+
+    public TeamAgeTotals(int expectedTeams) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedTeams / LOAD_FACTOR)) - 1) << 1;
+        keys = new long[capacity];
+        used = new boolean[capacity];
+        counts = new long[capacity];
+        ageSums = new long[capacity];
+    }
+
+    public void add(Long teamId, int age) {
+        if (teamId == null) {
+            noTeamCount++;
+            noTeamAgeSum += age;
+            return;
+        }
+        add(teamId.longValue(), 1, age);
+    }
+
+    public TeamAgeTotals merge(TeamAgeTotals other) {
+        for (int slot = 0; slot < other.keys.length; slot++) {
+            if (other.used[slot]) {
+                add(other.keys[slot], other.counts[slot], other.ageSums[slot]);
+            }
+        }
+        noTeamCount += other.noTeamCount;
+        noTeamAgeSum += other.noTeamAgeSum;
+        return this;
+    }
+
+    //teamId 가 null 이면 팀이 없는 회원
+    public long count(Long teamId) {
+        if (teamId == null) {
+            return noTeamCount;
+        }
+        int slot = find(teamId);
+        return slot >= 0 ? counts[slot] : 0;
+    }
+
+    public long ageSum(Long teamId) {
+        if (teamId == null) {
+            return noTeamAgeSum;
+        }
+        int slot = find(teamId);
+        return slot >= 0 ? ageSums[slot] : 0;
+    }
+
+    //회원이 없으면 NaN
+    public double ageAverage(Long teamId) {
+        long count = count(teamId);
+        return count == 0 ? Double.NaN : (double) ageSum(teamId) / count;
+    }
+
+    //팀이 있는 회원의 team id (오름차순)
+    public long[] teamIds() {
+        long[] ids = new long[size];
+        int index = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (used[slot]) {
+                ids[index++] = keys[slot];
+            }
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    public int teamCount() {
+        return size;
+    }
+
+    private void add(long teamId, long count, long ageSum) {
+        int slot = slotOf(teamId);
+        if (!used[slot]) {
+            if (size + 1 > keys.length * LOAD_FACTOR) {
+                grow();
+                slot = slotOf(teamId);
+            }
+            used[slot] = true;
+            keys[slot] = teamId;
+            size++;
+        }
+        counts[slot] += count;
+        ageSums[slot] += ageSum;
+    }
+
+    private int find(long teamId) {
+        int slot = slotOf(teamId);
+        return used[slot] ? slot : -1;
+    }
+
+    //teamId 가 있는 칸, 없으면 들어갈 빈 칸 (linear probing)
+    private int slotOf(long teamId) {
+        int mask = keys.length - 1;
+        int slot = mix(teamId) & mask;
+        while (used[slot] && keys[slot] != teamId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        boolean[] oldUsed = used;
+        long[] oldCounts = counts;
+        long[] oldAgeSums = ageSums;
+        int capacity = oldKeys.length * 2;
+        keys = new long[capacity];
+        used = new boolean[capacity];
+        counts = new long[capacity];
+        ageSums = new long[capacity];
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldUsed[slot]) {
+                int newSlot = slotOf(oldKeys[slot]);
+                used[newSlot] = true;
+                keys[newSlot] = oldKeys[slot];
+                counts[newSlot] = oldCounts[slot];
+                ageSums[newSlot] = oldAgeSums[slot];
+            }
+        }
+    }
+
+    //연속된 team id 가 한쪽에 몰리지 않게 섞는다
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
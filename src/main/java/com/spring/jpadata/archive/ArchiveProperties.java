@@ -0,0 +1,24 @@
+package com.spring.jpadata.archive;
+
+import com.spring.jpadata.dto.MemberSearchCondition;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 오래된 member 보관 설정 (jpadata.archive.*)
+ * 청크 크기 / 청크 사이 쉬는 시간은 조건 삭제와 같이 jpadata.bulk-delete.* 를 쓴다
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "jpadata.archive")
+public class ArchiveProperties {
+
+    //true 일 때만 MemberArchiveJob 이 돈다
+    private boolean enabled = false;
+    //보관 대상 (member 에 시간 컬럼이 없어서 검색 조건으로), 조건이 하나도 없으면 잡이 실행하지 않는다
+    private MemberSearchCondition policy = new MemberSearchCondition();
+    //이전 실행이 끝나고 다음 실행까지
+    private long fixedDelayMs = 3_600_000;
+    private long initialDelayMs = 60_000;
+}
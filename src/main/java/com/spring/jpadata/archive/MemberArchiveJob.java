@@ -0,0 +1,39 @@
+package com.spring.jpadata.archive;
+
+import com.spring.jpadata.dto.BulkDeleteResult;
+import com.spring.jpadata.dto.MemberSearchCondition;
+import com.spring.jpadata.repository.jpadata.MemberRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * jpadata.archive.policy 에 맞는 member 를 주기적으로 member_archive 로 옮긴다 (jpadata.archive.enabled=true 일 때만)
+ * 청크마다 별도 트랜잭션이라 트랜잭션 밖에서 호출한다
+ */
+@Slf4j
+@Configuration(proxyBeanMethods = false)
+@EnableScheduling
+@ConditionalOnProperty(prefix = "jpadata.archive", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class MemberArchiveJob {
+
+    private final MemberRepository memberRepository;
+    private final ArchiveProperties archiveProperties;
+
+    @Scheduled(initialDelayString = "${jpadata.archive.initial-delay-ms:60000}",
+            fixedDelayString = "${jpadata.archive.fixed-delay-ms:3600000}")
+    public void archive() {
+        MemberSearchCondition policy = archiveProperties.getPolicy();
+        //조건이 없으면 전체가 대상이 되므로 설정 실수로 보고 건너뛴다
+        if ("none".equals(policy.shape())) {
+            log.warn("jpadata.archive.policy is empty, skipping archive");
+            return;
+        }
+        BulkDeleteResult result = memberRepository.archiveBySearchCondition(policy);
+        log.info("archived {} members [{}]", result.getDeleted(), policy.shape());
+    }
+}
@@ -0,0 +1,149 @@
+package com.spring.jpadata.cache;
+
+import com.spring.jpadata.entity.Team;
+import com.spring.jpadata.outbox.MemberChangeListener;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * member / team 테이블별 변경 버전 -> 검색 API 의 ETag
+ * - member: MemberChangeListener.afterCommit (엔티티 변경 + bulkAgePlus), onReload (시드 적재)
+ * - team: Hibernate insert/update/delete 이벤트, 트랜잭션 커밋 후 (트랜잭션마다 synchronization 하나, REQUIRES_NEW 안쪽도 따로)
+ * 버전은 반드시 커밋 "후"에 올린다. 커밋 전에 올리면 그 사이 요청이 새 버전 + 옛 데이터로 응답하고,
+ * 클라이언트는 그 ETag 로 계속 304 를 받게 된다.
+ * 버전은 기동 시각에서 시작 -> 재기동하면 이전 ETag 는 전부 안 맞는다.
+ * 이 프로세스 안의 쓰기만 안다 (다른 인스턴스가 같은 DB 에 쓰면 감지 못함)
+ * Last-Modified 는 보내지 않는다: 초 단위라서 같은 초 안의 변경 뒤에도 If-Modified-Since 만 보내는 클라이언트가 304 를 받는다
+ */
+@Component
+public class TableVersionTracker implements MemberChangeListener,
+        PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final AtomicLong memberVersion;
+    private final AtomicLong teamVersion;
+
+    public TableVersionTracker(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+        long startedAt = System.currentTimeMillis();
+        this.memberVersion = new AtomicLong(startedAt);
+        this.teamVersion = new AtomicLong(startedAt);
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImpl.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    /**
+     * member, team 을 읽는 응답의 조건부 GET 처리
+     * true 면 304 가 이미 설정된 상태 -> 컨트롤러는 조회 없이 null 을 반환한다
+     */
+    public boolean checkNotModified(ServletWebRequest request) {
+        //버전은 조회 "전"에 읽는다 -> 조회 중에 커밋된 변경은 다음 요청에서 새 버전으로 잡힌다
+        String etag = "W/\"" + memberVersion.get() + "-" + teamVersion.get() + "\"";
+        //같은 URL 이라도 매번 서버에 확인하게 (확인 자체는 버전 비교라 싸다)
+        HttpServletResponse response = request.getResponse();
+        if (response != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT); //JSON / CBOR 가 같은 URL
+        }
+        return request.checkNotModified(etag);
+    }
+
+    public long getMemberVersion() {
+        return memberVersion.get();
+    }
+
+    public long getTeamVersion() {
+        return teamVersion.get();
+    }
+
+    @Override
+    public void afterCommit() {
+        bump(memberVersion);
+    }
+
+    @Override
+    public void onReload() {
+        bump(memberVersion);
+        bump(teamVersion);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        teamChanged(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        teamChanged(event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        teamChanged(event.getEntity());
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void teamChanged(Object entity) {
+        if (!(entity instanceof Team)) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bump(teamVersion);
+            return;
+        }
+        //getSynchronizations 는 지금 트랜잭션 것만 (보류된 바깥 트랜잭션 것은 안 보인다)
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof TeamVersionBump && ((TeamVersionBump) synchronization).isFor(this)) {
+                return;
+            }
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TeamVersionBump());
+    }
+
+    private void bump(AtomicLong version) {
+        version.incrementAndGet();
+    }
+
+    private class TeamVersionBump implements TransactionSynchronization {
+
+        boolean isFor(TableVersionTracker tracker) {
+            return tracker == TableVersionTracker.this;
+        }
+
+        @Override
+        public void afterCommit() {
+            bump(teamVersion);
+        }
+    }
+}
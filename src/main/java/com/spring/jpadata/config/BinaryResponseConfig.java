@@ -0,0 +1,73 @@
+package com.spring.jpadata.config;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.spring.jpadata.dto.MemberTeamDto;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 서비스 간 호출용 바이너리 응답 (Accept: application/cbor), 브라우저 / JSON 응답은 그대로
+ * - 필드 이름 대신 위치로 쓴다 (배열) -> 위치가 곧 필드 번호이므로 새 필드는 항상 뒤에만 추가하고 순서를 바꾸지 않는다
+ *   MemberTeamDto: [0 memberId, 1 username, 2 age, 3 teamId, 4 teamName]
+ *   Page / Slice: [0 content, 1 number, 2 size, 3 totalElements (Slice 는 null), 4 hasNext]
+ * - 트리(JsonNode)를 만들지 않고 JsonGenerator 로 응답 스트림에 바로 쓴다
+ */
+@Configuration
+public class BinaryResponseConfig implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.cbor()
+                .factory(new CBORFactory())
+                .mixIn(MemberTeamDto.class, MemberTeamDtoPositions.class)
+                .modulesToInstall(new SimpleModule("slim-page").addSerializer(new SliceSerializer()))
+                .build();
+        //cbor 라이브러리가 있으면 스프링 기본 CBOR 컨버터가 이미 들어가 있다 -> 그 자리를 바꿔 끼운다
+        converters.removeIf(converter -> converter instanceof MappingJackson2CborHttpMessageConverter);
+        converters.add(new MappingJackson2CborHttpMessageConverter(cborMapper));
+    }
+
+    @JsonFormat(shape = JsonFormat.Shape.ARRAY)
+    @JsonPropertyOrder({"memberId", "username", "age", "teamId", "teamName"})
+    abstract static class MemberTeamDtoPositions {
+    }
+
+    //PageImpl 의 pageable / sort / first / last / numberOfElements ... 는 빼고 필요한 것만
+    @SuppressWarnings("rawtypes")
+    static class SliceSerializer extends StdSerializer<Slice> {
+
+        SliceSerializer() {
+            super(Slice.class);
+        }
+
+        @Override
+        public void serialize(Slice slice, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartArray(slice, 5);
+            provider.defaultSerializeValue(slice.getContent(), gen);
+            gen.writeNumber(slice.getNumber());
+            gen.writeNumber(slice.getSize());
+            if (slice instanceof Page) {
+                gen.writeNumber(((Page) slice).getTotalElements());
+            } else {
+                gen.writeNull();
+            }
+            gen.writeBoolean(slice.hasNext());
+            gen.writeEndArray();
+        }
+    }
+}
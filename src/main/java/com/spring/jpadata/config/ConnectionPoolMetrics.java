@@ -0,0 +1,61 @@
+package com.spring.jpadata.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * 커넥션 풀 포화 지표
+ * - 커넥션 획득 대기 시간 히스토그램은 Hikari 가 hikaricp.connections.acquire 로 올려준다 (percentile 설정은 application.yml)
+ * - utilization: 사용 중 / 최대 풀 크기
+ * - saturation: (사용 중 + 대기 중인 스레드) / 최대 풀 크기 -> 1 을 넘으면 요청이 커넥션을 기다리고 있다
+ */
+@Component
+@RequiredArgsConstructor
+public class ConnectionPoolMetrics implements MeterBinder {
+
+    private final DataSource dataSource;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        HikariDataSource hikari = unwrap();
+        if (hikari == null) {
+            return;
+        }
+        Gauge.builder("jpadata.pool.utilization", hikari, ConnectionPoolMetrics::utilization)
+                .description("사용 중인 커넥션 / 최대 풀 크기")
+                .tag("pool", hikari.getPoolName())
+                .register(registry);
+        Gauge.builder("jpadata.pool.saturation", hikari, ConnectionPoolMetrics::saturation)
+                .description("(사용 중 + 대기 스레드) / 최대 풀 크기")
+                .tag("pool", hikari.getPoolName())
+                .register(registry);
+    }
+
+    static double utilization(HikariDataSource hikari) {
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        return pool == null ? 0 : (double) pool.getActiveConnections() / hikari.getMaximumPoolSize();
+    }
+
+    static double saturation(HikariDataSource hikari) {
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        return pool == null ? 0
+                : (double) (pool.getActiveConnections() + pool.getThreadsAwaitingConnection()) / hikari.getMaximumPoolSize();
+    }
+
+    //datasource-proxy 로 감싸져 있다 (DataSourceProxyPostProcessor)
+    private HikariDataSource unwrap() {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+}
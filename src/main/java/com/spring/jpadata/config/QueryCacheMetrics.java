@@ -0,0 +1,54 @@
+package com.spring.jpadata.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * 쿼리 플랜 캐시 / statement 캐시 메트릭
+ * - hit, miss 카운터 자체는 hibernate-micrometer 가 hibernate.cache.query.plan{result=hit|miss} 로 올려준다
+ * - 여기서는 대시보드에서 바로 보기 좋은 hit ratio 와 설정된 캐시 크기를 추가로 올린다
+ * - H2, Hikari 모두 prepared statement 캐시 hit/miss 를 노출하지 않아서 statement 쪽은 prepare 횟수로 대신 본다
+ */
+@Component
+@RequiredArgsConstructor
+public class QueryCacheMetrics implements MeterBinder {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Value("${jpadata.query-cache.plan-cache-size}")
+    private int planCacheSize;
+
+    @Value("${jpadata.query-cache.statement-cache-size}")
+    private int statementCacheSize;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Gauge.builder("jpadata.query.plan.cache.hit.ratio", statistics, QueryCacheMetrics::planCacheHitRatio)
+                .description("hibernate 쿼리 플랜 캐시 hit 비율")
+                .register(registry);
+        Gauge.builder("jpadata.query.plan.cache.max.size", () -> planCacheSize)
+                .register(registry);
+        Gauge.builder("jpadata.statement.cache.max.size", () -> statementCacheSize)
+                .description("H2 세션별 QUERY_CACHE_SIZE")
+                .register(registry);
+        Gauge.builder("jpadata.statement.prepared", statistics, Statistics::getPrepareStatementCount)
+                .description("JDBC prepareStatement 호출 수")
+                .register(registry);
+    }
+
+    static double planCacheHitRatio(Statistics statistics) {
+        long hit = statistics.getQueryPlanCacheHitCount();
+        long total = hit + statistics.getQueryPlanCacheMissCount();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+}
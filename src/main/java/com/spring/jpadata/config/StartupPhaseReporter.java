@@ -0,0 +1,62 @@
+package com.spring.jpadata.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 기동 단계별 소요 시간 기록 (직전 단계가 끝난 뒤부터 ms, 첫 단계는 JVM 시작부터)
+ * seed 는 단계 사이 간격이 아니라 seed 작업 자체를 잰 시간 (record)
+ * - SYNC 는 @PostConstruct 에서 돌므로 그 시간이 context-refreshed 에도 들어 있다
+ * - 백그라운드 seed 는 application-ready 와 순서가 정해져 있지 않다
+ * 빈 단위의 상세 내역은 /actuator/startup 에서 확인
+ */
+@Slf4j
+@Component
+public class StartupPhaseReporter {
+
+    private final Map<String, Long> phases = Collections.synchronizedMap(new LinkedHashMap<>());
+    //직전 단계가 끝난 시점 (JVM 시작 기준 ms)
+    private long lastMark;
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void contextRefreshed() {
+        mark("context-refreshed");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void applicationReady() {
+        mark("application-ready");
+    }
+
+    //작업 하나를 직접 잰 시간 (단계 간격 기준점은 옮기지 않는다)
+    public void record(String phase, long durationMillis) {
+        phases.put(phase, durationMillis);
+        log.info("startup phase [{}] {}ms", phase, durationMillis);
+    }
+
+    private void mark(String phase) {
+        long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        long duration;
+        synchronized (phases) {
+            duration = uptime - lastMark;
+            lastMark = uptime;
+            phases.put(phase, duration);
+        }
+        log.info("startup phase [{}] {}ms (at {}ms)", phase, duration, uptime);
+    }
+
+    //단계 이름 -> 소요 시간 (ms), 끝난 순서대로
+    public Map<String, Long> getPhases() {
+        synchronized (phases) {
+            return new LinkedHashMap<>(phases);
+        }
+    }
+}
@@ -1,9 +1,17 @@
 package com.spring.jpadata.controller;
 
+import com.spring.jpadata.config.StartupPhaseReporter;
 import com.spring.jpadata.entity.Member;
 import com.spring.jpadata.entity.Team;
+import com.spring.jpadata.seed.SeedDataGenerator;
+import com.spring.jpadata.seed.SeedSnapshot;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -11,16 +19,61 @@ import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
+@Slf4j
 @Profile("local")
 @Component
 @RequiredArgsConstructor
 public class InitMember {
 
+    /**
+     * SYNC: 기동 중에 바로 넣는다 (기존 방식)
+     * ASYNC: 기동이 끝난 뒤 백그라운드에서 넣는다
+     * SNAPSHOT: 스냅샷 파일에서 복원, 없으면 넣고 스냅샷을 만든다 (백그라운드)
+     * GENERATE: jpadata.seed.* 설정으로 대량 합성 데이터를 만든다 (스냅샷 복원 우선, 백그라운드)
+     * SKIP: 넣지 않는다
+     */
+    public enum Mode { SYNC, ASYNC, SNAPSHOT, GENERATE, SKIP }
+
     private final InitMemberService initMemberService;
+    private final SeedSnapshot seedSnapshot;
+    private final SeedDataGenerator seedDataGenerator;
+    private final TaskExecutor applicationTaskExecutor;
+    private final StartupPhaseReporter startupPhaseReporter;
+
+    @Value("${jpadata.init.mode:sync}")
+    private Mode mode;
+
+    @Value("${jpadata.init.snapshot-path:~/datajpa-seed.zip}")
+    private String snapshotPath;
 
     @PostConstruct
     public void init() {
-        initMemberService.init();
+        if (mode == Mode.SYNC) {
+            seed(initMemberService::init);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initAfterStartup() {
+        if (mode == Mode.ASYNC) {
+            applicationTaskExecutor.execute(() -> seed(initMemberService::init));
+        } else if (mode == Mode.SNAPSHOT) {
+            applicationTaskExecutor.execute(() -> seed(() -> {
+                if (!seedSnapshot.restore(snapshotPath)) {
+                    initMemberService.init();
+                    seedSnapshot.export(snapshotPath);
+                }
+            }));
+        } else if (mode == Mode.GENERATE) {
+            applicationTaskExecutor.execute(() -> seed(seedDataGenerator::restoreOrGenerate));
+        }
+    }
+
+    //seed 작업만 잰다 (앞 단계와의 간격이 아니라)
+    private void seed(Runnable work) {
+        long startedAt = System.nanoTime();
+        work.run();
+        startupPhaseReporter.record("seed", (System.nanoTime() - startedAt) / 1_000_000);
     }
 
     @Component
@@ -41,4 +94,4 @@ public class InitMember {
             }
         }
     }
-}
\ No newline at end of file
+}
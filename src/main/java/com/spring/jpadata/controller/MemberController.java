@@ -1,15 +1,31 @@
 package com.spring.jpadata.controller;
 
+import com.spring.jpadata.cache.TableVersionTracker;
+import com.spring.jpadata.dto.InvalidSearchConditionException;
+import com.spring.jpadata.dto.MemberBatchSearchResult;
 import com.spring.jpadata.dto.MemberSearchCondition;
 import com.spring.jpadata.dto.MemberTeamDto;
+import com.spring.jpadata.outbox.MemberChangeBatch;
+import com.spring.jpadata.outbox.MemberChangeFeed;
 import com.spring.jpadata.repository.jpadata.MemberRepository;
+import com.spring.jpadata.repository.reactive.MemberReactiveRepository;
 import com.spring.jpadata.repository.pure.MemberJpaRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
 
@@ -18,20 +34,63 @@ import java.util.List;
 public class MemberController {
 
     private final MemberRepository memberRepository;
+    private final MemberReactiveRepository memberReactiveRepository;
+    private final MemberChangeFeed memberChangeFeed;
+    private final TableVersionTracker tableVersionTracker;
 
+    //조건부 GET: member / team 이 그대로면 검색하지 않고 304 (null 반환 -> 본문 없음)
     @GetMapping("/v1/members")
-    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
+    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition, ServletWebRequest request) {
+        if (tableVersionTracker.checkNotModified(request)) {
+            return null;
+        }
         List<MemberTeamDto> memberTeamDtos = memberRepository.search(condition);
         return memberTeamDtos;
     }
 
+    //배치 잡용: 조건 여러 개를 한 번에 (결과는 요청 조건 순서대로, 줄어든 DB 왕복 수 포함)
+    @PostMapping("/v1/members/batch")
+    public MemberBatchSearchResult searchMemberBatch(@RequestBody List<MemberSearchCondition> conditions) {
+        return memberRepository.searchBatch(conditions);
+    }
+
     @GetMapping("/v2/members")
     public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
         return memberRepository.searchPageSimple(condition, pageable);
     }
     @GetMapping("/v3/members")
-    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
+    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable, ServletWebRequest request) {
+        if (tableVersionTracker.checkNotModified(request)) {
+            return null;
+        }
         return memberRepository.searchPageComplex(condition, pageable);
     }
 
+    //무한 스크롤 (전체 개수 없이 hasNext 만, count 쿼리 안 나감)
+    @GetMapping("/v4/members")
+    public Slice<MemberTeamDto> searchMemberV4(MemberSearchCondition condition, Pageable pageable) {
+        return memberRepository.searchSlice(condition, pageable);
+    }
+
+    //논블로킹 조회: 클라이언트가 읽는 만큼 pageSize 단위로 가져와서 NDJSON 으로 흘려보낸다
+    @GetMapping(value = "/reactive/members", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<MemberTeamDto> searchMemberReactive(MemberSearchCondition condition,
+                                                    @RequestParam(defaultValue = "100") int pageSize) {
+        return memberReactiveRepository.searchPaged(condition, pageSize);
+    }
+
+    //변경 피드: 응답의 nextOffset 을 다음 요청의 since 로 넘기면서 이어서 읽는다
+    @GetMapping("/members/changes")
+    public MemberChangeBatch memberChanges(@RequestParam(defaultValue = "0") long since,
+                                           @RequestParam(defaultValue = "500") int limit) {
+        return memberChangeFeed.readSince(since, limit);
+    }
+
+    //잘못된 검색 파라미터 (pageSize < 1, 지원하지 않는 조건 조합) -> 400, 그 밖의 예외는 그대로 500
+    @ExceptionHandler(InvalidSearchConditionException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String badRequest(InvalidSearchConditionException e) {
+        return e.getMessage();
+    }
+
 }
@@ -0,0 +1,26 @@
+package com.spring.jpadata.controller;
+
+import com.spring.jpadata.dto.TeamStatsDto;
+import com.spring.jpadata.stats.TeamStatsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+
+    private final TeamStatsService teamStatsService;
+
+    //팀별 회원 수, 나이 합계/평균/최소/최대, 나이 히스토그램 (verify=true 면 전체 재계산과 맞춰 본 뒤 응답)
+    @GetMapping("/teams/stats")
+    public List<TeamStatsDto> teamStats(@RequestParam(defaultValue = "false") boolean verify) {
+        if (verify) {
+            teamStatsService.verify();
+        }
+        return teamStatsService.getStats();
+    }
+}
@@ -0,0 +1,69 @@
+package com.spring.jpadata.diagnostics;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * DataSource 를 datasource-proxy 로 감싸서 등록된 QueryExecutionListener 빈들에게 실행된 SQL 을 넘긴다
+ * 리스너 빈은 첫 쿼리 때 한번만 찾는다 (BeanPostProcessor 에서 다른 빈을 일찍 만들지 않기 위해)
+ * 리스너 (slow-query, sql-log) 가 둘 다 꺼져 있으면 감싸지 않는다 -> 문장마다 드는 프록시 비용도 없다
+ */
+@Component
+@ConditionalOnExpression("${jpadata.diagnostics.slow-query.enabled:false} or ${jpadata.sql-log.enabled:true}")
+public class DataSourceProxyPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<QueryExecutionListener> listenerProvider;
+
+    public DataSourceProxyPostProcessor(ObjectProvider<QueryExecutionListener> listenerProvider) {
+        this.listenerProvider = listenerProvider;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (bean instanceof DataSource && !(bean instanceof ProxyDataSource)) {
+            return ProxyDataSourceBuilder.create((DataSource) bean)
+                    .name(beanName)
+                    .listener(new DelegatingListener())
+                    .build();
+        }
+        return bean;
+    }
+
+    class DelegatingListener implements QueryExecutionListener {
+
+        private volatile List<QueryExecutionListener> listeners;
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            for (QueryExecutionListener listener : listeners()) {
+                listener.beforeQuery(execInfo, queryInfoList);
+            }
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            for (QueryExecutionListener listener : listeners()) {
+                listener.afterQuery(execInfo, queryInfoList);
+            }
+        }
+
+        private List<QueryExecutionListener> listeners() {
+            if (listeners == null) {
+                listeners = listenerProvider.orderedStream().collect(Collectors.toList());
+            }
+            return listeners;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.spring.jpadata.diagnostics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+//지연 로딩 호출 위치 리포트 (많은 순)
+@Component
+@Endpoint(id = "lazyloads")
+@RequiredArgsConstructor
+public class LazyLoadEndpoint {
+
+    private final LazyLoadGuard lazyLoadGuard;
+
+    @ReadOperation
+    public List<LazyLoadSite> lazyLoads() {
+        return lazyLoadGuard.getSites();
+    }
+
+    @DeleteOperation
+    public void clear() {
+        lazyLoadGuard.clear();
+    }
+}
@@ -0,0 +1,209 @@
+package com.spring.jpadata.diagnostics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.HibernateException;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.LoadEvent;
+import org.hibernate.event.spi.LoadEventListener;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 프록시 초기화 (Member.team 등 LAZY ManyToOne) 와 지연 컬렉션 초기화 (Team.members) 를 잡는다
+ * - 요청 단위 scope (LazyLoadGuardInterceptor) 안에서 횟수를 세고, FAIL 모드면 허용 횟수를 넘는 순간 예외
+ * - 호출 위치 (스택에서 처음 만나는 애플리케이션 코드) 별로 모아서 /actuator/lazyloads 로 본다
+ * scope 밖 (시드 적재, 배치, 리포지토리 테스트) 은 리포트에만 남기고 실패시키지 않는다
+ * OSIV 를 끄면 트랜잭션 밖 지연 로딩은 LazyInitializationException 이 되므로, 여기서 잡히는 건 트랜잭션 안 N+1 이다
+ */
+@Slf4j
+@Component
+public class LazyLoadGuard implements LoadEventListener, InitializeCollectionEventListener, MeterBinder {
+
+    private static final String APPLICATION_PACKAGE = "com.spring.jpadata.";
+
+    private static final ThreadLocal<Scope> current = new ThreadLocal<>();
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final LazyLoadGuardProperties properties;
+
+    private final ConcurrentMap<String, LazyLoadSite> sites = new ConcurrentHashMap<>();
+    private final LongAdder total = new LongAdder();
+
+    public LazyLoadGuard(EntityManagerFactory entityManagerFactory, LazyLoadGuardProperties properties) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.properties = properties;
+    }
+
+    //기본 리스너보다 먼저 불려야 FAIL 모드에서 SQL 이 나가기 전에 멈춘다
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImpl.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.prependListeners(EventType.LOAD, this);
+        registry.prependListeners(EventType.INIT_COLLECTION, this);
+    }
+
+    /**
+     * 지연 로딩을 세는 구간을 연다 (웹 요청은 LazyLoadGuardInterceptor 가 연다)
+     * try-with-resources 로 닫으면 이전 scope 로 되돌아간다
+     */
+    public Scope open(String name) {
+        Scope scope = new Scope(name, current.get());
+        current.set(scope);
+        return scope;
+    }
+
+    //이 스레드에 열려 있는 scope (없으면 null)
+    Scope currentScope() {
+        return current.get();
+    }
+
+    //프록시 초기화는 session.immediateLoad -> IMMEDIATE_LOAD 로만 들어온다 (find / getReference 는 다른 LoadType)
+    @Override
+    public void onLoad(LoadEvent event, LoadType loadType) throws HibernateException {
+        if (loadType == LoadEventListener.IMMEDIATE_LOAD) {
+            lazyLoaded(simpleName(event.getEntityClassName()));
+        }
+    }
+
+    @Override
+    public void onInitializeCollection(InitializeCollectionEvent event) throws HibernateException {
+        String role = event.getCollection().getRole();
+        lazyLoaded(role != null ? role.substring(role.lastIndexOf('.', role.lastIndexOf('.') - 1) + 1) : "collection");
+    }
+
+    public List<LazyLoadSite> getSites() {
+        return sites.values().stream()
+                .sorted(Comparator.comparingLong(LazyLoadSite::getCount).reversed())
+                .collect(Collectors.toList());
+    }
+
+    public long getTotal() {
+        return total.sum();
+    }
+
+    public void clear() {
+        sites.clear();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("jpadata.lazy.loads", total, LongAdder::sum)
+                .description("proxy / collection lazy initializations")
+                .register(registry);
+    }
+
+    private void lazyLoaded(String target) {
+        if (properties.getMode() == LazyLoadGuardProperties.Mode.OFF) {
+            return;
+        }
+        Scope scope = current.get();
+        String scopeName = scope != null ? scope.name : null;
+        String callSite = callSite(scopeName);
+
+        total.increment();
+        String key = callSite + " -> " + target;
+        LazyLoadSite site = sites.get(key);
+        if (site == null && sites.size() < properties.getMaxSites()) {
+            site = sites.computeIfAbsent(key, k -> new LazyLoadSite(callSite, target));
+        }
+        if (site != null) {
+            site.hit(scopeName);
+        }
+
+        if (scope == null) {
+            return;
+        }
+        scope.hit(key);
+        if (properties.getMode() == LazyLoadGuardProperties.Mode.FAIL && scope.count > properties.getFailThreshold()) {
+            throw new LazyLoadViolationException("lazy load #" + scope.count + " in " + scope.name
+                    + " (threshold " + properties.getFailThreshold() + "): " + key);
+        }
+    }
+
+    //스택에서 처음 만나는 애플리케이션 코드 (LazyLoadGuard 자신, 스프링/CGLIB/Hibernate 프록시 제외)
+    //컨트롤러가 엔티티를 반환해서 직렬화 중에 로딩되면 애플리케이션 코드가 없다 -> scope 이름으로 남긴다
+    private static String callSite(String scopeName) {
+        return StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE).walk(frames -> frames
+                        .filter(frame -> frame.getClassName().startsWith(APPLICATION_PACKAGE)
+                                && frame.getDeclaringClass() != LazyLoadGuard.class
+                                && !frame.getClassName().contains("$$")
+                                && !frame.getClassName().contains("$HibernateProxy$"))
+                        .findFirst()
+                        .map(frame -> simpleName(frame.getClassName()) + "." + frame.getMethodName()
+                                + "(" + frame.getFileName() + ":" + frame.getLineNumber() + ")"))
+                .orElse((scopeName != null ? scopeName : "unknown") + " (outside application code)");
+    }
+
+    private static String simpleName(String className) {
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+
+    public static class Scope implements AutoCloseable {
+
+        private final String name;
+        private final Scope previous;
+        private int count;
+        private Map<String, Integer> hits;
+
+        private Scope(String name, Scope previous) {
+            this.name = name;
+            this.previous = previous;
+        }
+
+        private void hit(String key) {
+            count++;
+            if (hits == null) {
+                hits = new LinkedHashMap<>();
+            }
+            hits.merge(key, 1, Integer::sum);
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        //호출 위치 -> 대상별 횟수, 많은 순
+        public List<String> getHits() {
+            if (hits == null) {
+                return List.of();
+            }
+            List<String> lines = new ArrayList<>();
+            hits.entrySet().stream()
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                    .forEach(entry -> lines.add(entry.getValue() + "x " + entry.getKey()));
+            return lines;
+        }
+
+        @Override
+        public void close() {
+            if (count > 0) {
+                log.warn("{} lazy loads in {}: {}", count, name, getHits());
+            }
+            if (previous == null) {
+                current.remove();
+            } else {
+                current.set(previous);
+            }
+        }
+    }
+}
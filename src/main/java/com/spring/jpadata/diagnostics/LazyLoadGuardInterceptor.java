@@ -0,0 +1,59 @@
+package com.spring.jpadata.diagnostics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 요청마다 LazyLoadGuard scope 를 연다 (컨트롤러 호출 ~ 응답 직렬화까지)
+ * 비동기 요청 (Flux, Callable 등) 은 afterCompletion 없이 요청 스레드가 먼저 빠진다 -> afterConcurrentHandlingStarted 에서 닫고
+ * async 재디스패치 때 preHandle 이 다시 scope 를 연다 (스레드의 ThreadLocal 이 남거나 죽은 scope 가 이어지지 않도록)
+ */
+@Component
+@RequiredArgsConstructor
+public class LazyLoadGuardInterceptor implements AsyncHandlerInterceptor, WebMvcConfigurer {
+
+    private static final String SCOPE_ATTRIBUTE = LazyLoadGuardInterceptor.class.getName() + ".scope";
+
+    private final LazyLoadGuard lazyLoadGuard;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(this);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String name = request.getMethod() + " " + request.getRequestURI();
+        if (handler instanceof HandlerMethod) {
+            HandlerMethod handlerMethod = (HandlerMethod) handler;
+            name += " [" + handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName() + "]";
+        }
+        request.setAttribute(SCOPE_ATTRIBUTE, lazyLoadGuard.open(name));
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        close(request);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        close(request);
+    }
+
+    private void close(HttpServletRequest request) {
+        Object scope = request.getAttribute(SCOPE_ATTRIBUTE);
+        if (scope != null) {
+            request.removeAttribute(SCOPE_ATTRIBUTE);
+            ((LazyLoadGuard.Scope) scope).close();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.spring.jpadata.diagnostics;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 지연 로딩 감시 설정 (jpadata.lazy-load-guard.*)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "jpadata.lazy-load-guard")
+public class LazyLoadGuardProperties {
+
+    /**
+     * OFF: 아무것도 하지 않는다
+     * COUNT: 요청마다 세고, 있으면 호출 위치와 함께 warn 로그 + /actuator/lazyloads 에 모은다
+     * FAIL: COUNT + 한 요청에서 failThreshold 를 넘는 순간 LazyLoadViolationException (테스트에서 N+1 을 잡는다)
+     */
+    public enum Mode { OFF, COUNT, FAIL }
+
+    private Mode mode = Mode.COUNT;
+    //FAIL 모드에서 한 요청에 허용하는 지연 로딩 횟수
+    private int failThreshold = 0;
+    //리포트에 남기는 호출 위치 개수 (넘으면 새 위치는 버린다)
+    private int maxSites = 500;
+}
@@ -0,0 +1,30 @@
+package com.spring.jpadata.diagnostics;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 지연 로딩이 일어난 호출 위치 (ex. MemberService.java:42 -> Team, Team.members) 와 누적 횟수
+ */
+@RequiredArgsConstructor
+public class LazyLoadSite {
+
+    @Getter
+    private final String callSite;
+    @Getter
+    private final String target;
+    private final LongAdder count = new LongAdder();
+    @Getter
+    private volatile String lastScope;
+
+    void hit(String scope) {
+        count.increment();
+        lastScope = scope;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+}
@@ -0,0 +1,11 @@
+package com.spring.jpadata.diagnostics;
+
+/**
+ * FAIL 모드에서 요청 안의 지연 로딩이 허용 횟수를 넘었을 때
+ */
+public class LazyLoadViolationException extends IllegalStateException {
+
+    public LazyLoadViolationException(String message) {
+        super(message);
+    }
+}
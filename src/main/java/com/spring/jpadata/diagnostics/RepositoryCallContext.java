@@ -0,0 +1,40 @@
+package com.spring.jpadata.diagnostics;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 지금 스레드에서 실행 중인 리포지토리 메소드 (ex. MemberRepository.search) 와 검색 조건 모양
+ * JDBC 레벨 리스너에서 어떤 리포지토리 호출이 만든 SQL 인지 알기 위해 사용한다
+ */
+@Getter
+@RequiredArgsConstructor
+public class RepositoryCallContext {
+
+    private static final ThreadLocal<RepositoryCallContext> current = new ThreadLocal<>();
+
+    public static final RepositoryCallContext UNKNOWN = new RepositoryCallContext("unknown", null);
+
+    private final String method;
+    private final String shape;
+
+    public static RepositoryCallContext current() {
+        RepositoryCallContext context = current.get();
+        return context != null ? context : UNKNOWN;
+    }
+
+    //이전 값을 돌려주므로 끝나면 restore(previous) 로 되돌린다 (리포지토리 안에서 다른 리포지토리를 불러도 안전)
+    static RepositoryCallContext enter(RepositoryCallContext context) {
+        RepositoryCallContext previous = current.get();
+        current.set(context);
+        return previous;
+    }
+
+    static void restore(RepositoryCallContext previous) {
+        if (previous == null) {
+            current.remove();
+        } else {
+            current.set(previous);
+        }
+    }
+}
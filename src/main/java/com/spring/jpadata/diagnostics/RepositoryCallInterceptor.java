@@ -0,0 +1,55 @@
+package com.spring.jpadata.diagnostics;
+
+import com.spring.jpadata.dto.MemberSearchCondition;
+import lombok.RequiredArgsConstructor;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Component;
+
+/**
+ * 모든 스프링 데이터 리포지토리 프록시에 RepositoryCallContext 를 채우는 advice 를 붙인다
+ * (쿼리 메소드, @Query, MemberRepositoryImpl 같은 사용자 정의 구현 모두 이 프록시를 거친다)
+ */
+@Component
+public class RepositoryCallInterceptor implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+        if (bean instanceof RepositoryFactoryBeanSupport) {
+            RepositoryFactoryBeanSupport<?, ?, ?> factoryBean = (RepositoryFactoryBeanSupport<?, ?, ?>) bean;
+            factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                    (proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(
+                            new Advice(repositoryInformation.getRepositoryInterface().getSimpleName()))));
+        }
+        return bean;
+    }
+
+    @RequiredArgsConstructor
+    static class Advice implements MethodInterceptor {
+
+        private final String repositoryName;
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            RepositoryCallContext previous = RepositoryCallContext.enter(new RepositoryCallContext(
+                    repositoryName + "." + invocation.getMethod().getName(), shape(invocation.getArguments())));
+            try {
+                return invocation.proceed();
+            } finally {
+                RepositoryCallContext.restore(previous);
+            }
+        }
+
+        private static String shape(Object[] arguments) {
+            for (Object argument : arguments) {
+                if (argument instanceof MemberSearchCondition) {
+                    return ((MemberSearchCondition) argument).shape();
+                }
+            }
+            return null;
+        }
+    }
+}
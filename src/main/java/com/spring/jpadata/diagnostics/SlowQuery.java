@@ -0,0 +1,19 @@
+package com.spring.jpadata.diagnostics;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.time.Instant;
+
+@Getter @ToString
+@RequiredArgsConstructor
+public class SlowQuery {
+
+    private final Instant executedAt;
+    private final String method;
+    private final String shape;
+    private final long elapsedMillis;
+    private final String sql;
+    private final String plan;
+}
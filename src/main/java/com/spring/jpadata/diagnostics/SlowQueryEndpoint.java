@@ -0,0 +1,29 @@
+package com.spring.jpadata.diagnostics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(prefix = "jpadata.diagnostics.slow-query", name = "enabled", havingValue = "true")
+@Endpoint(id = "slowqueries")
+@RequiredArgsConstructor
+public class SlowQueryEndpoint {
+
+    private final SlowQueryRecorder slowQueryRecorder;
+
+    @ReadOperation
+    public List<SlowQuery> slowQueries() {
+        return slowQueryRecorder.getRecent();
+    }
+
+    @DeleteOperation
+    public void clear() {
+        slowQueryRecorder.clear();
+    }
+}
@@ -0,0 +1,111 @@
+package com.spring.jpadata.diagnostics;
+
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 임계값보다 오래 걸린 SQL 의 EXPLAIN 을 떠서 최근 N 개만 보관한다 (/actuator/slowqueries)
+ * 파라미터 trace 로그를 켜지 않아도 어떤 리포지토리 메소드 / 검색 조건 모양에서 어떤 플랜이 나왔는지 볼 수 있다
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "jpadata.diagnostics.slow-query", name = "enabled", havingValue = "true")
+public class SlowQueryRecorder implements QueryExecutionListener {
+
+    private final long thresholdMillis;
+    private final int capacity;
+    private final Deque<SlowQuery> recent;
+    //EXPLAIN 자체가 다시 이 리스너로 들어오는 것을 막는다
+    private final ThreadLocal<Boolean> explaining = ThreadLocal.withInitial(() -> false);
+
+    public SlowQueryRecorder(@Value("${jpadata.diagnostics.slow-query.threshold-ms:200}") long thresholdMillis,
+                             @Value("${jpadata.diagnostics.slow-query.capacity:100}") int capacity) {
+        this.thresholdMillis = thresholdMillis;
+        this.capacity = capacity;
+        this.recent = new ArrayDeque<>(capacity);
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (execInfo.getElapsedTime() < thresholdMillis || queryInfoList.isEmpty() || explaining.get()) {
+            return;
+        }
+        RepositoryCallContext context = RepositoryCallContext.current();
+        for (QueryInfo queryInfo : queryInfoList) {
+            String plan = explain(execInfo, queryInfo);
+            add(new SlowQuery(Instant.now(), context.getMethod(), context.getShape(),
+                    execInfo.getElapsedTime(), queryInfo.getQuery(), plan));
+        }
+    }
+
+    public List<SlowQuery> getRecent() {
+        synchronized (recent) {
+            return new ArrayList<>(recent);
+        }
+    }
+
+    public void clear() {
+        synchronized (recent) {
+            recent.clear();
+        }
+    }
+
+    private void add(SlowQuery slowQuery) {
+        synchronized (recent) {
+            if (recent.size() == capacity) {
+                recent.removeFirst();
+            }
+            recent.addLast(slowQuery);
+        }
+    }
+
+    //같은 커넥션에서 같은 파라미터로 EXPLAIN (실행하지 않고 플랜만 본다)
+    private String explain(ExecutionInfo execInfo, QueryInfo queryInfo) {
+        String sql = queryInfo.getQuery().trim();
+        String keyword = sql.split("\\s+", 2)[0].toLowerCase(Locale.ROOT);
+        if (!(keyword.equals("select") || keyword.equals("with") || keyword.equals("insert")
+                || keyword.equals("update") || keyword.equals("delete"))) {
+            return null;
+        }
+        explaining.set(true);
+        try {
+            Connection connection = execInfo.getStatement().getConnection();
+            try (PreparedStatement explain = connection.prepareStatement("explain " + sql)) {
+                if (!queryInfo.getParametersList().isEmpty()) {
+                    for (ParameterSetOperation operation : queryInfo.getParametersList().get(0)) {
+                        operation.getMethod().invoke(explain, operation.getArgs());
+                    }
+                }
+                try (ResultSet resultSet = explain.executeQuery()) {
+                    return resultSet.next() ? resultSet.getString(1) : null;
+                }
+            }
+        } catch (SQLException | ReflectiveOperationException e) {
+            log.debug("explain failed for slow query: {}", sql, e);
+            return "explain failed: " + e.getMessage();
+        } finally {
+            explaining.set(false);
+        }
+    }
+}
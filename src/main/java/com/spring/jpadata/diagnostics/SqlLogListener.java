@@ -0,0 +1,163 @@
+package com.spring.jpadata.diagnostics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * org.hibernate.SQL debug + org.hibernate.type trace 대신 쓰는 SQL 로그
+ * - 리포지토리 메소드별 비율로 샘플링
+ * - 쿼리 스레드에서는 SQL / 파라미터 참조만 큐에 넣고, 문자열 조립과 로그 출력은 백그라운드 스레드에서 한다
+ * - 큐가 차면 버리고 개수만 센다 (쿼리 스레드는 절대 기다리지 않는다)
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "jpadata.sql-log", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SqlLogListener implements QueryExecutionListener, MeterBinder {
+
+    private static final Logger sqlLog = LoggerFactory.getLogger("jpadata.sql");
+    private static final int DRAIN_BATCH = 256;
+
+    private final SqlLogProperties properties;
+    private final BlockingQueue<Entry> queue;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public SqlLogListener(SqlLogProperties properties) {
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.getBufferSize());
+        this.writer = new Thread(this::drainLoop, "sql-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        RepositoryCallContext context = RepositoryCallContext.current();
+        double rate = properties.rateOf(context.getMethod());
+        if (rate <= 0 || (rate < 1 && ThreadLocalRandom.current().nextDouble() >= rate)) {
+            return;
+        }
+        for (QueryInfo queryInfo : queryInfoList) {
+            //파라미터는 목록만 복사해 두고 문자열로 바꾸는 것은 나중에
+            List<List<ParameterSetOperation>> parameters = new ArrayList<>(queryInfo.getParametersList().size());
+            for (List<ParameterSetOperation> parameterSet : queryInfo.getParametersList()) {
+                parameters.add(new ArrayList<>(parameterSet));
+            }
+            Entry entry = new Entry(context, execInfo.getElapsedTime(), execInfo.isSuccess(),
+                    queryInfo.getQuery(), parameters);
+            if (!queue.offer(entry)) {
+                dropped.incrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("jpadata.sql.log.queue", queue, BlockingQueue::size).register(registry);
+        Gauge.builder("jpadata.sql.log.dropped", dropped, AtomicLong::get).register(registry);
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private void drainLoop() {
+        List<Entry> batch = new ArrayList<>(DRAIN_BATCH);
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, DRAIN_BATCH - 1);
+                for (Entry entry : batch) {
+                    write(entry);
+                }
+                batch.clear();
+            } catch (InterruptedException e) {
+                running = false;
+            } catch (RuntimeException e) {
+                log.warn("sql log write failed", e);
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(Entry entry) {
+        if (!sqlLog.isInfoEnabled()) {
+            return;
+        }
+        sqlLog.info("[{}{}] {}ms {}{} {}",
+                entry.context.getMethod(),
+                entry.context.getShape() != null ? " " + entry.context.getShape() : "",
+                entry.elapsedMillis,
+                entry.success ? "" : "FAILED ",
+                entry.sql,
+                formatParameters(entry.parameters));
+    }
+
+    static String formatParameters(List<List<ParameterSetOperation>> parameters) {
+        StringJoiner sets = new StringJoiner(", ", "[", "]");
+        for (List<ParameterSetOperation> parameterSet : parameters) {
+            StringJoiner values = new StringJoiner(",", "(", ")");
+            for (ParameterSetOperation operation : parameterSet) {
+                Object[] args = operation.getArgs();
+                //setXxx(index, value, ...) / setNull(index, type)
+                values.add(ParameterSetOperation.isSetNullParameterOperation(operation) || args.length < 2
+                        ? "null" : String.valueOf(args[1]));
+            }
+            sets.add(values.toString());
+        }
+        return sets.toString();
+    }
+
+    static class Entry {
+        final RepositoryCallContext context;
+        final long elapsedMillis;
+        final boolean success;
+        final String sql;
+        final List<List<ParameterSetOperation>> parameters;
+
+        Entry(RepositoryCallContext context, long elapsedMillis, boolean success, String sql,
+              List<List<ParameterSetOperation>> parameters) {
+            this.context = context;
+            this.elapsedMillis = elapsedMillis;
+            this.success = success;
+            this.sql = sql;
+            this.parameters = parameters;
+        }
+    }
+}
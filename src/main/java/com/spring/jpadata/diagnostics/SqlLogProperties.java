@@ -0,0 +1,28 @@
+package com.spring.jpadata.diagnostics;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 샘플링 SQL 로그 설정 (jpadata.sql-log.*)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "jpadata.sql-log")
+public class SqlLogProperties {
+
+    private boolean enabled = true;
+    //로그 스레드가 밀리면 이 개수 이후로는 버린다
+    private int bufferSize = 8192;
+    //리포지토리 메소드별 샘플링 비율 (0 ~ 1), 없으면 defaultRate
+    private double defaultRate = 0.01;
+    private Map<String, Double> methods = new HashMap<>();
+
+    public double rateOf(String method) {
+        return methods.getOrDefault(method, defaultRate);
+    }
+}
@@ -0,0 +1,16 @@
+package com.spring.jpadata.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class BulkDeleteResult {
+
+    private long deleted;
+    //커밋한 트랜잭션 (청크) 수
+    private int chunks;
+    private long elapsedMillis;
+    //초당 삭제 행 수
+    private double rowsPerSecond;
+}
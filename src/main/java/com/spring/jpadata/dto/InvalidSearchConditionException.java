@@ -0,0 +1,12 @@
+package com.spring.jpadata.dto;
+
+/**
+ * 클라이언트가 보낸 검색 입력이 잘못됐을 때 (pageSize < 1, 지원하지 않는 조건 조합 등) -> 컨트롤러에서 400, 메시지는 응답 본문
+ * IllegalArgumentException 을 상속하지 않는다: @Repository 예외 변환에 걸리지 않고, 다른 코드의 버그(IllegalArgumentException)와 섞이지 않게
+ */
+public class InvalidSearchConditionException extends RuntimeException {
+
+    public InvalidSearchConditionException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,19 @@
+package com.spring.jpadata.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class MemberBatchSearchResult {
+
+    //요청한 조건 순서 그대로, 조건마다 검색 결과
+    private List<List<MemberTeamDto>> results;
+    private int conditionCount;
+    //실제로 실행한 쿼리 수 (같은 모양 조건은 OR 로 묶어서 한 번)
+    private int queryCount;
+    //조건마다 /v1/members 를 따로 불렀을 때보다 줄어든 DB 왕복 수
+    private int roundTripsSaved;
+}
@@ -1,6 +1,9 @@
 package com.spring.jpadata.dto;
 
 import lombok.Data;
+import org.springframework.util.StringUtils;
+
+import java.util.StringJoiner;
 
 @Data
 public class MemberSearchCondition {
@@ -10,4 +13,26 @@ public class MemberSearchCondition {
     private String teamName;
     private Integer ageGoe;
     private Integer ageLoe;
+    //username 부분 문자열 / 오타 허용 검색 (UsernameSearchIndex, 결과는 관련도 순) -> 둘 다 있으면 usernameContains
+    private String usernameContains;
+    private String usernameFuzzy;
+    //member_archive 로 옮겨진 회원도 같이 검색 (usernameContains / usernameFuzzy, exists, 조건 삭제, reactive 검색과는 같이 못 쓴다 -> InvalidSearchConditionException)
+    private boolean includeArchived;
+
+    public boolean hasTextSearch() {
+        return StringUtils.hasText(usernameContains) || StringUtils.hasText(usernameFuzzy);
+    }
+
+    //어떤 조건이 채워져 있는지 ex) "username,ageGoe" -> 진단 기록을 조건 모양별로 묶을 때 사용
+    public String shape() {
+        StringJoiner shape = new StringJoiner(",");
+        if (StringUtils.hasText(username)) shape.add("username");
+        if (StringUtils.hasText(teamName)) shape.add("teamName");
+        if (ageGoe != null) shape.add("ageGoe");
+        if (ageLoe != null) shape.add("ageLoe");
+        if (StringUtils.hasText(usernameContains)) shape.add("usernameContains");
+        if (StringUtils.hasText(usernameFuzzy)) shape.add("usernameFuzzy");
+        if (includeArchived) shape.add("includeArchived");
+        return shape.length() == 0 ? "none" : shape.toString();
+    }
 }
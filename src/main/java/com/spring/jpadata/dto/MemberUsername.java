@@ -0,0 +1,16 @@
+package com.spring.jpadata.dto;
+
+import lombok.Data;
+
+//username 인덱스 적재용
+@Data
+public class MemberUsername {
+
+    private Long id;
+    private String username;
+
+    public MemberUsername(Long id, String username) {
+        this.id = id;
+        this.username = username;
+    }
+}
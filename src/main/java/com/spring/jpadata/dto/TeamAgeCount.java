@@ -0,0 +1,20 @@
+package com.spring.jpadata.dto;
+
+import com.querydsl.core.annotations.QueryProjection;
+import lombok.Data;
+
+//팀, 나이별 회원 수 (팀 통계 전체 재계산용)
+@Data
+public class TeamAgeCount {
+
+    private Long teamId;
+    private Integer age;
+    private long count;
+
+    @QueryProjection
+    public TeamAgeCount(Long teamId, Integer age, long count) {
+        this.teamId = teamId;
+        this.age = age;
+        this.count = count;
+    }
+}
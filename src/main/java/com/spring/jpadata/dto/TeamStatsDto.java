@@ -0,0 +1,21 @@
+package com.spring.jpadata.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class TeamStatsDto {
+
+    private Long teamId;
+    private String teamName;
+    private long memberCount;
+    private long ageSum;
+    private Double ageAvg; // 나이가 있는 회원 기준, 없으면 null
+    private Integer ageMin;
+    private Integer ageMax;
+    //구간 시작 나이 -> 회원 수 (ex. bucket 10 이면 0, 10, 20 ...)
+    private Map<Integer, Long> ageHistogram;
+}
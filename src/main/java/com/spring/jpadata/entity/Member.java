@@ -9,6 +9,12 @@ import static javax.persistence.FetchType.*;
 @Entity @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of={"id","username","age"}) //@ToString은 가급적 내부 필드만(연관관계 없는 필드만!
+//MemberSearchCondition 검색 조건별 인덱스 (username 단독/prefix 검색은 idx_member_username_age 의 앞 컬럼을 탄다)
+@Table(indexes = {
+        @Index(name = "idx_member_username_age", columnList = "username, age"),
+        @Index(name = "idx_member_age", columnList = "age"),
+        @Index(name = "idx_member_team_age", columnList = "team_id, age")
+})
 public class Member {
     @Id
     @GeneratedValue
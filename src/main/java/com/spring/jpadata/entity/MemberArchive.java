@@ -0,0 +1,46 @@
+package com.spring.jpadata.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+import static javax.persistence.FetchType.LAZY;
+
+/**
+ * 보관 정책(jpadata.archive.policy)에 걸려 member 에서 옮겨진 회원 (MemberRepository.archiveBySearchCondition)
+ * member id 를 그대로 쓰므로 includeArchived 검색에서 member 와 id 로 이어서 정렬된다
+ * 인덱스는 member 와 같은 모양 (검색 조건이 같다)
+ */
+@Entity @Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString(of = {"id", "username", "age", "archivedAt"})
+@Table(name = "member_archive", indexes = {
+        @Index(name = "idx_member_archive_username_age", columnList = "username, age"),
+        @Index(name = "idx_member_archive_team_age", columnList = "team_id, age")
+})
+public class MemberArchive {
+
+    @Id
+    @Column(name = "member_id")
+    private Long id;
+
+    private String username;
+
+    private Integer age;
+
+    @ManyToOne(fetch = LAZY)
+    @JoinColumn(name = "team_id")
+    private Team team;
+
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,44 @@
+package com.spring.jpadata.entity;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Member 변경 기록 (transactional outbox)
+ * Member 를 바꾼 트랜잭션 안에서 같이 insert 되므로 커밋된 변경만 남는다.
+ * id 가 곧 offset -> 소비하는 쪽은 마지막으로 읽은 id 만 기억하면 된다 (MemberChangeFeed)
+ */
+@Entity @Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class MemberChange {
+
+    public enum Type { INSERT, UPDATE, DELETE }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY) // insert-select 로도 채우므로 시퀀스 대신 identity
+    @Column(name = "change_id")
+    private Long id;
+
+    private Long memberId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 10)
+    private Type type;
+
+    //변경 후 값 (DELETE 는 지워지기 직전 값)
+    private String username;
+    private Integer age;
+    private Long teamId;
+
+    //UPDATE 만: 변경 전 값 (팀 통계처럼 이전 값을 빼야 하는 소비자용)
+    private Integer oldAge;
+    private Long oldTeamId;
+    //UPDATE 인데 변경 전 값을 모를 때 true (oldAge / oldTeamId 가 null 이어도 "없었다" 가 아니다 -> 소비자는 전체 재계산)
+    @Column(columnDefinition = "boolean default false not null")
+    private boolean oldStateUnknown;
+
+    private LocalDateTime createdAt;
+}
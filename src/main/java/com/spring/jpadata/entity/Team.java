@@ -9,6 +9,7 @@ import java.util.List;
 @Entity @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(exclude = "memberes")
+@Table(indexes = @Index(name = "idx_team_name", columnList = "name")) // teamName 검색조건
 public class Team {
 
     @Id
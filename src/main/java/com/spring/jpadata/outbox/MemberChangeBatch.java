@@ -0,0 +1,21 @@
+package com.spring.jpadata.outbox;
+
+import com.spring.jpadata.entity.MemberChange;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.util.List;
+
+@Getter @ToString
+@RequiredArgsConstructor
+public class MemberChangeBatch {
+
+    private final List<MemberChange> changes;
+    //다음 readSince 에 넘길 offset (읽은 게 없으면 요청한 offset 그대로)
+    private final long nextOffset;
+
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+}
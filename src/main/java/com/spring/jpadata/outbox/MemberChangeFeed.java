@@ -0,0 +1,171 @@
+package com.spring.jpadata.outbox;
+
+import com.spring.jpadata.entity.MemberChange;
+import com.spring.jpadata.repository.jpadata.MemberChangeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * member_change 를 offset 이후부터 배치로 읽는 tailer
+ * 캐시/검색 인덱스는 전체 Member 를 다시 읽지 않고 마지막 offset 만 들고 있다가 이어서 읽으면 된다.
+ *
+ * identity 값은 커밋 순서가 아니라 insert 순서로 잡힌다 -> 먼저 번호를 받은 트랜잭션이 늦게 커밋하면
+ * 그 사이 번호가 잠깐 비어 보인다. 비어 있는 번호(gap)를 처음 본 시각을 기억해 두고 gap-grace 동안은 거기서 끊고
+ * 다음 호출에 다시 읽는다. 그 뒤에도 비어 있으면 롤백으로 보고 넘어간다.
+ * (gap 뒤 기록의 created_at 으로 판단하면 오래 걸린 트랜잭션이 늦게 커밋한 번호를 바로 넘어가 버린다)
+ *
+ * 항상 새 트랜잭션에서 읽는다 -> 호출한 쪽 트랜잭션이 아직 커밋 안 한 기록은 안 보인다
+ * (프로세스 전역 상태를 고치는 소비자가 롤백될 변경을 반영하지 않도록)
+ */
+@Component
+public class MemberChangeFeed {
+
+    private static final int PAGE_SIZE = 1000;
+
+    private final MemberChangeRepository memberChangeRepository;
+    private final long gapGraceMillis;
+    private final TransactionTemplate readTransaction;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+
+    //gap 시작 id -> 처음 본 시각 (ms)
+    private final ConcurrentSkipListMap<Long, Long> gapFirstSeen = new ConcurrentSkipListMap<>();
+    //여기까지는 커밋됐거나 롤백으로 확인된 위치 (-1: 아직 모름, 처음 settledPosition 에서 정한다)
+    private final AtomicLong settledOffset = new AtomicLong(-1);
+
+    public MemberChangeFeed(MemberChangeRepository memberChangeRepository, PlatformTransactionManager transactionManager,
+                            @Value("${jpadata.outbox.gap-grace-ms:5000}") long gapGraceMillis) {
+        this.memberChangeRepository = memberChangeRepository;
+        this.gapGraceMillis = gapGraceMillis;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setReadOnly(true);
+    }
+
+    public MemberChangeBatch readSince(long offset, int limit) {
+        List<MemberChange> changes = readTransaction.execute(status ->
+                memberChangeRepository.findByIdGreaterThanOrderByIdAsc(offset, PageRequest.of(0, limit)));
+        long now = System.currentTimeMillis();
+
+        long previous = offset;
+        int end = 0;
+        for (MemberChange change : changes) {
+            if (!passable(previous, change.getId(), now)) {
+                break;
+            }
+            previous = change.getId();
+            end++;
+        }
+        advance(offset, previous);
+        return new MemberChangeBatch(changes.subList(0, end), previous);
+    }
+
+    /**
+     * 전체 재계산 스냅샷을 읽는 트랜잭션 안에서 호출 -> 스냅샷과 같은 시점의 이어 읽을 위치
+     * max(id) 를 offset 으로 쓰면 아직 커밋 안 된 트랜잭션이 받은 더 낮은 id 는 스냅샷에도 없고 피드로도 다시 안 읽힌다
+     * 확인된 위치(settledOffset)부터 readSince 와 같은 gap 규칙으로 나가다가 못 넘는 gap 에서 멈춘다
+     * 그 뒤에 보이는 기록은 applied 로 돌려준다
+     * 처음 한 번은 이 프로세스가 뜨기 전에 만들어진 마지막 기록을 확인된 위치로 삼는다 (그 아래 gap 은 이전 프로세스의 롤백)
+     */
+    @Transactional(propagation = Propagation.MANDATORY, readOnly = true)
+    public MemberChangePosition settledPosition() {
+        long from = confirmedOffset();
+        long now = System.currentTimeMillis();
+        List<MemberChange> applied = new ArrayList<>();
+        long previous = from;
+        long after = from;
+        while (true) {
+            List<MemberChange> page = memberChangeRepository.findByIdGreaterThanOrderByIdAsc(after, PageRequest.of(0, PAGE_SIZE));
+            for (MemberChange change : page) {
+                if (applied.isEmpty() && passable(previous, change.getId(), now)) {
+                    previous = change.getId();
+                } else {
+                    applied.add(change);
+                }
+            }
+            if (page.size() < PAGE_SIZE) {
+                break;
+            }
+            after = page.get(page.size() - 1).getId();
+        }
+        advance(from, previous);
+        return new MemberChangePosition(previous, applied);
+    }
+
+    //previous 바로 다음이 id 이면 통과, 사이가 비어 있으면 그 gap 을 처음 본 뒤 gap-grace 가 지났을 때만 (롤백으로 보고) 통과
+    //gap 안의 번호는 전부 뒤에 보이는 id 보다 먼저 받은 번호 -> 처음 본 시각부터 재면 모두 그만큼 이상 열려 있던 것
+    private boolean passable(long previous, long id, long now) {
+        if (id == previous + 1) {
+            return true;
+        }
+        long firstSeen = gapFirstSeen.computeIfAbsent(previous + 1, gap -> now);
+        return now - firstSeen >= gapGraceMillis;
+    }
+
+    //확인된 위치 안쪽에서 시작해 to 까지 왔으면 확인된 위치를 to 로, 그 아래 gap 기록은 버린다
+    private void advance(long from, long to) {
+        while (true) {
+            long confirmed = settledOffset.get();
+            if (confirmed < 0 || from > confirmed || to <= confirmed) {
+                return;
+            }
+            if (settledOffset.compareAndSet(confirmed, to)) {
+                gapFirstSeen.headMap(to, true).clear();
+                return;
+            }
+        }
+    }
+
+    private long confirmedOffset() {
+        long confirmed = settledOffset.get();
+        if (confirmed >= 0) {
+            return confirmed;
+        }
+        long boundary = 0;
+        long before = Long.MAX_VALUE;
+        search:
+        while (true) {
+            List<MemberChange> page = memberChangeRepository.findByIdLessThanOrderByIdDesc(before, PageRequest.of(0, PAGE_SIZE));
+            for (MemberChange change : page) {
+                if (change.getCreatedAt().isBefore(startedAt)) {
+                    boundary = change.getId();
+                    break search;
+                }
+            }
+            if (page.size() < PAGE_SIZE) {
+                break;
+            }
+            before = page.get(page.size() - 1).getId();
+        }
+        settledOffset.compareAndSet(-1, boundary);
+        return settledOffset.get();
+    }
+
+    /**
+     * offset 이후 변경을 따라잡을 때까지 batchSize 씩 consumer 에 넘기고 마지막 offset 을 돌려준다
+     * consumer 가 예외를 던지면 거기서 멈춘다 -> 마지막으로 성공한 offset 부터 다시 호출하면 된다
+     */
+    public long tail(long offset, int batchSize, Consumer<MemberChangeBatch> consumer) {
+        long current = offset;
+        while (true) {
+            MemberChangeBatch batch = readSince(current, batchSize);
+            if (batch.isEmpty()) {
+                return current;
+            }
+            consumer.accept(batch);
+            current = batch.getNextOffset();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.spring.jpadata.outbox;
+
+/**
+ * member 가 바뀌었다는 신호를 받는 쪽 (프로세스 안 캐시 무효화 등)
+ * 변경 내용이 필요하면 MemberChangeFeed 를 읽는다
+ */
+public interface MemberChangeListener {
+
+    //변경이 flush 된 직후 (아직 커밋 전, 같은 트랜잭션 안)
+    default void onFlush() {
+    }
+
+    //변경한 트랜잭션이 커밋된 뒤 (트랜잭션당 한 번)
+    default void afterCommit() {
+    }
+
+    //member_change 를 남기지 않고 member 를 통째로 넣었을 때 (시드 데이터 생성 / 스냅샷 복원) -> 처음부터 다시 읽어야 한다
+    default void onReload() {
+    }
+}
@@ -0,0 +1,53 @@
+package com.spring.jpadata.outbox;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * member 쓰기 경로(MemberChangeRecorder, 벌크 update)에서 호출 -> MemberChangeListener 들에게 알린다
+ * afterCommit 은 트랜잭션마다 한 번만 등록한다 (지금 트랜잭션의 synchronization 목록에 이미 있으면 건너뛴다)
+ * REQUIRES_NEW 로 바깥 트랜잭션이 보류되면 목록도 같이 보류되므로 안쪽 트랜잭션은 따로 등록한다
+ * outbox 를 거치지 않는 대량 적재(SeedDataGenerator, SeedSnapshot)는 reloaded() 를 호출한다
+ */
+@Component
+public class MemberChangeNotifier {
+
+    private final ObjectProvider<MemberChangeListener> listeners;
+
+    public MemberChangeNotifier(ObjectProvider<MemberChangeListener> listeners) {
+        this.listeners = listeners;
+    }
+
+    public void changed() {
+        listeners.orderedStream().forEach(MemberChangeListener::onFlush);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            listeners.orderedStream().forEach(MemberChangeListener::afterCommit);
+            return;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof AfterCommitNotification && ((AfterCommitNotification) synchronization).isFor(this)) {
+                return;
+            }
+        }
+        TransactionSynchronizationManager.registerSynchronization(new AfterCommitNotification());
+    }
+
+    public void reloaded() {
+        listeners.orderedStream().forEach(MemberChangeListener::onReload);
+    }
+
+    private class AfterCommitNotification implements TransactionSynchronization {
+
+        boolean isFor(MemberChangeNotifier notifier) {
+            return notifier == MemberChangeNotifier.this;
+        }
+
+        @Override
+        public void afterCommit() {
+            listeners.orderedStream().forEach(MemberChangeListener::afterCommit);
+        }
+    }
+}
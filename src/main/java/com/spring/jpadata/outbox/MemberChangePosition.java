@@ -0,0 +1,32 @@
+package com.spring.jpadata.outbox;
+
+import com.spring.jpadata.entity.MemberChange;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 전체 재계산 스냅샷과 같은 시점의 피드 위치 (MemberChangeFeed.settledPosition)
+ * offset 까지는 gap 없이 스냅샷에 반영됐고, offset 뒤 기록 중 applied 는 스냅샷에 이미 들어 있다
+ * -> offset 부터 이어서 읽되 applied 는 건너뛴다 (offset 과 applied 사이 빈 번호는 아직 커밋 안 된 트랜잭션)
+ */
+@Getter @ToString
+@RequiredArgsConstructor
+public class MemberChangePosition {
+
+    private final long offset;
+    //id 오름차순
+    private final List<MemberChange> applied;
+
+    public Set<Long> appliedIds() {
+        Set<Long> ids = new HashSet<>();
+        for (MemberChange change : applied) {
+            ids.add(change.getId());
+        }
+        return ids;
+    }
+}
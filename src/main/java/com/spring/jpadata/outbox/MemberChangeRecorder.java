@@ -0,0 +1,125 @@
+package com.spring.jpadata.outbox;
+
+import com.spring.jpadata.entity.Member;
+import com.spring.jpadata.entity.MemberChange;
+import com.spring.jpadata.entity.Team;
+import org.hibernate.HibernateException;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+/**
+ * Member insert/update/delete 를 member_change 에 같이 기록한다
+ * MemberRepository, MemberJpaRepository 모두 결국 Hibernate flush 를 타므로 여기 한 곳에서 잡는다.
+ * 기록은 flush 중인 세션의 커넥션으로 바로 insert -> Member 변경과 같은 트랜잭션으로 커밋/롤백된다.
+ * (벌크 update 는 이벤트가 안 나오므로 MemberRepositoryImpl.bulkAgePlus 에서 insert-select 로 남긴다)
+ */
+@Component
+public class MemberChangeRecorder implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    static final String INSERT_SQL = "insert into member_change" +
+            "(member_id, type, username, age, team_id, old_age, old_team_id, old_state_unknown, created_at)" +
+            " values (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final MemberChangeNotifier memberChangeNotifier;
+
+    public MemberChangeRecorder(EntityManagerFactory entityManagerFactory, MemberChangeNotifier memberChangeNotifier) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.memberChangeNotifier = memberChangeNotifier;
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImpl.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            record(event.getSession(), MemberChange.Type.INSERT, event.getId(), event.getPersister(), event.getState(), null);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Member) {
+            record(event.getSession(), MemberChange.Type.UPDATE, event.getId(), event.getPersister(), event.getState(),
+                    event.getOldState());
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            record(event.getSession(), MemberChange.Type.DELETE, event.getId(), event.getPersister(), event.getDeletedState(),
+                    null);
+        }
+    }
+
+    //커밋 후가 아니라 flush 시점에 기록해야 같은 트랜잭션에 들어간다
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void record(SharedSessionContractImplementor session, MemberChange.Type type,
+                        Object id, EntityPersister persister, Object[] state, Object[] oldState) {
+        int usernameIndex = persister.getEntityMetamodel().getPropertyIndex("username");
+        int ageIndex = persister.getEntityMetamodel().getPropertyIndex("age");
+        int teamIndex = persister.getEntityMetamodel().getPropertyIndex("team");
+
+        try (PreparedStatement statement = session.getJdbcCoordinator()
+                .getLogicalConnection()
+                .getPhysicalConnection()
+                .prepareStatement(INSERT_SQL)) {
+            statement.setLong(1, (Long) id);
+            statement.setString(2, type.name());
+            statement.setObject(3, state[usernameIndex], Types.VARCHAR);
+            statement.setObject(4, state[ageIndex], Types.INTEGER);
+            statement.setObject(5, teamId(state[teamIndex]), Types.BIGINT);
+            //session.update() 로 붙인 준영속 엔티티는 oldState 가 없다 -> old_state_unknown (소비자는 전체 재계산으로 맞춘다)
+            statement.setObject(6, oldState != null ? oldState[ageIndex] : null, Types.INTEGER);
+            statement.setObject(7, oldState != null ? teamId(oldState[teamIndex]) : null, Types.BIGINT);
+            statement.setBoolean(8, type == MemberChange.Type.UPDATE && oldState == null);
+            statement.setTimestamp(9, new Timestamp(System.currentTimeMillis()));
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new HibernateException("member_change 기록 실패: member_id=" + id, e);
+        }
+        memberChangeNotifier.changed();
+    }
+
+    //프록시면 초기화하지 않고 id 만 꺼낸다
+    private Long teamId(Object team) {
+        if (team == null) {
+            return null;
+        }
+        if (team instanceof HibernateProxy) {
+            return (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier();
+        }
+        return ((Team) team).getId();
+    }
+}
@@ -0,0 +1,114 @@
+package com.spring.jpadata.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * long[] id 목록을 리포지토리 in 절에 넘길 때 쓰는 도구
+ * List<Long> 로 옮겨 담으면 id 하나에 Long 객체 + 참조로 수십 바이트가 든다
+ * - view: long[] 구간을 복사 없이 List<Long> 으로 (바인딩하는 순간에만 Long.valueOf)
+ * - bind: JDBC setLong 으로 바로 (박싱 없음)
+ */
+public final class LongIds {
+
+    private LongIds() {
+    }
+
+    //정렬 + 중복 제거 (원본 배열은 건드리지 않는다) -> 청크끼리 결과가 겹치지 않는다
+    public static long[] distinctSorted(long[] ids) {
+        long[] sorted = ids.clone();
+        Arrays.sort(sorted);
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (size == 0 || sorted[i] != sorted[size - 1]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return size == sorted.length ? sorted : Arrays.copyOf(sorted, size);
+    }
+
+    //ids[from, to) 를 읽기 전용 List<Long> 으로
+    public static List<Long> view(long[] ids, int from, int to) {
+        return new LongArrayView(ids, from, to);
+    }
+
+    /**
+     * in (?, ?, ...) 자리표시자: 2의 거듭제곱 개수로 패딩 (hibernate in_clause_parameter_padding 과 같은 이유 -> statement 캐시 재사용)
+     * 남는 자리는 bind 가 마지막 id 로 채운다
+     */
+    public static String placeholders(int count) {
+        int padded = paddedSize(count);
+        StringBuilder sql = new StringBuilder(padded * 3);
+        for (int i = 0; i < padded; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        return sql.toString();
+    }
+
+    //ids[from, to) 를 parameterIndex 부터 setLong, 패딩 자리까지 채운다 -> 다음 파라미터 index
+    public static int bind(PreparedStatement statement, int parameterIndex,
+                           long[] ids, int from, int to) throws SQLException {
+        int padded = paddedSize(to - from);
+        for (int i = 0; i < padded; i++) {
+            statement.setLong(parameterIndex++, ids[Math.min(from + i, to - 1)]);
+        }
+        return parameterIndex;
+    }
+
+    static int paddedSize(int count) {
+        return count <= 1 ? 1 : Integer.highestOneBit(count - 1) << 1;
+    }
+
+    //결과 id 를 모으는 long 배열 (ArrayList<Long> 대신)
+    public static class Builder {
+        private long[] values = new long[16];
+        private int size;
+
+        public void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    private static class LongArrayView extends AbstractList<Long> implements RandomAccess {
+        private final long[] ids;
+        private final int from;
+        private final int size;
+
+        LongArrayView(long[] ids, int from, int to) {
+            if (from < 0 || to > ids.length || from > to) {
+                throw new IndexOutOfBoundsException("from=" + from + ", to=" + to + ", length=" + ids.length);
+            }
+            this.ids = ids;
+            this.from = from;
+            this.size = to - from;
+        }
+
+        @Override
+        public Long get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("index=" + index + ", size=" + size);
+            }
+            return ids[from + index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
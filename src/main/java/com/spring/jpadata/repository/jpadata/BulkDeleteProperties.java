@@ -0,0 +1,19 @@
+package com.spring.jpadata.repository.jpadata;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 조건 삭제 (deleteBySearchCondition) 설정 (jpadata.bulk-delete.*)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "jpadata.bulk-delete")
+public class BulkDeleteProperties {
+
+    //트랜잭션 하나에서 지우는 최대 행 수 (락을 잡는 시간 = 청크 하나 처리 시간)
+    private int chunkSize = 1000;
+    //청크 사이에 쉬는 시간 -> 다른 트랜잭션이 끼어들 틈
+    private long pauseMs = 0;
+}
@@ -0,0 +1,21 @@
+package com.spring.jpadata.repository.jpadata;
+
+import com.spring.jpadata.entity.MemberChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface MemberChangeRepository extends JpaRepository<MemberChange, Long> {
+
+    //offset(=마지막으로 읽은 change_id) 이후 변경을 id 순으로 (pk 범위 스캔)
+    List<MemberChange> findByIdGreaterThanOrderByIdAsc(Long offset, Pageable pageable);
+
+    //id 역순 (최근 기록부터 거슬러 읽을 때)
+    List<MemberChange> findByIdLessThanOrderByIdDesc(Long id, Pageable pageable);
+
+    //지금까지 기록된 마지막 offset
+    @Query("select coalesce(max(c.id), 0) from MemberChange c")
+    long findLastId();
+}
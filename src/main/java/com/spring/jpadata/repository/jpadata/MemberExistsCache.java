@@ -0,0 +1,75 @@
+package com.spring.jpadata.repository.jpadata;
+
+import com.spring.jpadata.outbox.MemberChangeListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * exists 조회의 "없음" 결과만 짧게 기억한다 (있음은 지워지면 틀리므로 캐시하지 않는다)
+ * member 가 바뀌면 (flush / 커밋) 전부 비운다.
+ * 조회 도중에 바뀐 경우를 막으려고 조회 시작 때의 generation 이 그대로일 때만 넣는다.
+ * 다른 서버의 쓰기는 알 수 없으므로 ttl 만큼은 늦게 보일 수 있다.
+ */
+@Component
+public class MemberExistsCache implements MemberChangeListener {
+
+    private final long ttlNanos;
+    private final int maxSize;
+    private final ConcurrentHashMap<String, Long> absentUntil = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    public MemberExistsCache(@Value("${jpadata.exists-cache.ttl-ms:1000}") long ttlMillis,
+                             @Value("${jpadata.exists-cache.max-size:10000}") int maxSize) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.maxSize = maxSize;
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    public boolean isKnownAbsent(String key) {
+        Long until = absentUntil.get(key);
+        if (until == null) {
+            return false;
+        }
+        if (System.nanoTime() - until > 0) {
+            absentUntil.remove(key, until);
+            return false;
+        }
+        return true;
+    }
+
+    public void markAbsent(String key, long generationAtStart) {
+        if (ttlNanos <= 0 || generation.get() != generationAtStart) {
+            return;
+        }
+        if (absentUntil.size() >= maxSize) {
+            absentUntil.clear();
+        }
+        absentUntil.put(key, System.nanoTime() + ttlNanos);
+        //넣는 사이에 바뀌었으면 되돌린다
+        if (generation.get() != generationAtStart) {
+            absentUntil.remove(key);
+        }
+    }
+
+    @Override
+    public void onFlush() {
+        invalidate();
+    }
+
+    @Override
+    public void afterCommit() {
+        invalidate();
+    }
+
+    private void invalidate() {
+        generation.incrementAndGet();
+        absentUntil.clear();
+    }
+}
@@ -0,0 +1,63 @@
+package com.spring.jpadata.repository.jpadata;
+
+import com.querydsl.core.types.Expression;
+import com.spring.jpadata.dto.MemberResponse;
+import com.spring.jpadata.dto.MemberTeamDto;
+import com.spring.jpadata.dto.QMemberResponse;
+import com.spring.jpadata.dto.QMemberTeamDto;
+import lombok.Getter;
+
+import static com.spring.jpadata.entity.QMember.member;
+import static com.spring.jpadata.entity.QMemberArchive.memberArchive;
+import static com.spring.jpadata.entity.QTeam.team;
+
+/**
+ * 검색 결과를 어디까지 읽을지 (select 컬럼, team 조인 여부)
+ * - ID_ONLY: member id 만
+ * - SUMMARY: username, age (MemberResponse)
+ * - WITH_TEAM: member + team (MemberTeamDto), 기존 검색 메소드의 기본값
+ * ID_ONLY, SUMMARY 는 teamName 조건이 있을 때만 team 을 조인한다
+ * archiveProjection: 같은 결과를 member_archive 에서 읽는 select (includeArchived 검색)
+ * 결과 타입이 프로필마다 달라서 enum 대신 타입 파라미터가 있는 상수로 둔다
+ */
+@Getter
+public final class MemberFetchProfile<T> {
+
+    public static final MemberFetchProfile<Long> ID_ONLY =
+            new MemberFetchProfile<>("ID_ONLY", member.id, memberArchive.id, false);
+
+    public static final MemberFetchProfile<MemberResponse> SUMMARY =
+            new MemberFetchProfile<>("SUMMARY",
+                    new QMemberResponse(member.username, member.age),
+                    new QMemberResponse(memberArchive.username, memberArchive.age), false);
+
+    public static final MemberFetchProfile<MemberTeamDto> WITH_TEAM =
+            new MemberFetchProfile<>("WITH_TEAM", new QMemberTeamDto(
+                    member.id.as("memberId"),
+                    member.username,
+                    member.age,
+                    team.id.as("teamId"),
+                    team.name.as("teamName")), new QMemberTeamDto(
+                    memberArchive.id.as("memberId"),
+                    memberArchive.username,
+                    memberArchive.age,
+                    team.id.as("teamId"),
+                    team.name.as("teamName")), true);
+
+    private final String name;
+    private final Expression<T> projection;
+    private final Expression<T> archiveProjection;
+    private final boolean teamSelected;
+
+    private MemberFetchProfile(String name, Expression<T> projection, Expression<T> archiveProjection, boolean teamSelected) {
+        this.name = name;
+        this.projection = projection;
+        this.archiveProjection = archiveProjection;
+        this.teamSelected = teamSelected;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -2,15 +2,18 @@ package com.spring.jpadata.repository.jpadata;
 
 import com.spring.jpadata.dto.MemberDto;
 import com.spring.jpadata.entity.Member;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
 import javax.swing.text.html.Option;
-import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
             /**여기서 중요한 점 ! 인터페이스는 여러개를 상속 받을 수 있다.*/
 public interface MemberRepository extends JpaRepository<Member,Long> ,MemberRepositoryCustom{
@@ -29,21 +32,38 @@ public interface MemberRepository extends JpaRepository<Member,Long> ,MemberRepo
     @Query("select m.username from Member m")
     List<String> findUsername();
 
+    //이름 스트리밍 -> DB 커서로 fetch size 만큼씩 가져온다 (호출하는 쪽에 트랜잭션이 있어야 하고 다 쓰면 close!)
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select m.username from Member m")
+    Stream<String> streamUsername();
+
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select distinct m.username from Member m")
+    Stream<String> streamDistinctUsername();
+
+    //이름 페이징 -> Slice 라서 count 쿼리가 나가지 않는다
+    @Query("select m.username from Member m")
+    Slice<String> findUsername(Pageable pageable);
+
+    @Query("select distinct m.username from Member m")
+    Slice<String> findDistinctUsername(Pageable pageable);
+
+    //자동완성용 prefix 검색 (like 'prefix%' 는 username 인덱스를 탄다, %나 _는 escape 처리)
+    @Query("select distinct m.username from Member m" +
+            " where m.username like ?#{escape([0])}% escape ?#{escapeCharacter()}" +
+            " order by m.username")
+    List<String> findUsernameByPrefix(String prefix, Pageable pageable);
+
     //dto로 조회할 때는 new operation을 사용해야한다
     @Query("select new com.spring.jpadata.dto.MemberDto(m.id,m.username,t.name)" +
             "from Member m join m.team t")
     List<MemberDto> findMemberDto();
 
     //컬렉션 파라미터 바인딩 -> in절 사용
-    @Query("select m from Member m where m.username in :names") // -> 이렇게 하면 컬렉션을 파라미터 바인딩 가능!
-    List<Member> findByNames(@Param("names") Collection<String> names);
-
-
-    @Modifying(clearAutomatically = true) //@Modifying 이것이 jpa에서 .excuteUpdate() 를 해준다.
-    @Query("update Member m set m.age = m.age+1 where m.age >=:age")
-    int bulkAgePlus(@Param("age") int age);
+    //findByNames(Collection<String>)는 MemberRepositoryCustom으로 이동 (청크 분할 + 대용량은 임시테이블 조인)
 
-    //clearAutomatically = true 속성은 벌크성 쿼리가 실행한다음에  em.clear()를 해준다.(영속성 컨텍스트 clear)
+    //벌크 update: bulkAgePlus(int)는 MemberRepositoryCustom으로 이동 (member_change 기록을 같이 남겨야 해서)
+    //벌크성 쿼리가 실행한 다음에는 em.clear()를 해준다.(영속성 컨텍스트 clear)
 
     //유연한 반환 타입
     List<Member> findByUsername(String username); // 컬렉션 반환
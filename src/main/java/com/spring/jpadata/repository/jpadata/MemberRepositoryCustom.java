@@ -1,10 +1,16 @@
 package com.spring.jpadata.repository.jpadata;
 
+import com.spring.jpadata.dto.BulkDeleteResult;
+import com.spring.jpadata.dto.MemberBatchSearchResult;
 import com.spring.jpadata.dto.MemberSearchCondition;
 import com.spring.jpadata.dto.MemberTeamDto;
+import com.spring.jpadata.dto.TeamAgeCount;
+import com.spring.jpadata.entity.Member;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.util.Collection;
 import java.util.List;
 //interface로 제작
 public interface MemberRepositoryCustom { // 사용자 정의 인터페이스
@@ -12,5 +18,43 @@ public interface MemberRepositoryCustom { // 사용자 정의 인터페이스
     List<MemberTeamDto> search(MemberSearchCondition condition);
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition,Pageable pageable);
+    //무한 스크롤용: count 쿼리 없이 pageSize + 1 건으로 다음 페이지 여부만 판단
+    Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable);
+
+    //condition.includeArchived 이면 member 와 member_archive 를 같이 읽어 member id 순으로 합친다 (usernameContains / usernameFuzzy 와 같이 쓰면 InvalidSearchConditionException)
+    //위 검색들의 프로필 버전: 필요한 컬럼만 select, team 컬럼이 필요 없으면 조인도 생략 (위 메소드들은 WITH_TEAM)
+    <T> List<T> search(MemberSearchCondition condition, MemberFetchProfile<T> profile);
+    <T> Page<T> searchPageSimple(MemberSearchCondition condition, Pageable pageable, MemberFetchProfile<T> profile);
+    <T> Page<T> searchPageComplex(MemberSearchCondition condition, Pageable pageable, MemberFetchProfile<T> profile);
+    <T> Slice<T> searchSlice(MemberSearchCondition condition, Pageable pageable, MemberFetchProfile<T> profile);
+
+    //여러 조건을 한 트랜잭션(커넥션)에서: 같은 모양(shape) 조건끼리 OR 로 묶어 한 쿼리로 읽고 조건별로 나눠 담는다
+    MemberBatchSearchResult searchBatch(List<MemberSearchCondition> conditions);
+
+    //컬렉션 파라미터 바인딩 -> in절 (크기에 따라 청크 분할 / 임시테이블 조인 자동 선택)
+    List<Member> findByNames(Collection<String> names);
+
+    //long[] id 버전 (id 마다 Long 을 담은 리스트를 만들지 않는다, 청크 in 절 / JDBC setLong 바인딩)
+    List<Member> findAllByIds(long[] ids);
+    //team 에 속한 member id (오름차순)
+    long[] findIdsByTeamIds(long[] teamIds);
+    //벌크 delete + member_change 기록 (bulkAgePlus 와 같이 끝나면 영속성 컨텍스트 clear)
+    int deleteByIds(long[] ids);
+
+    //조건에 맞는 member 를 id 순 청크로 나눠 청크마다 새 트랜잭션에서 삭제 (호출한 쪽 트랜잭션과 별개로 커밋된다)
+    //조건이 하나도 없으면 (전체 삭제) InvalidSearchConditionException
+    BulkDeleteResult deleteBySearchCondition(MemberSearchCondition condition);
+    //deleteBySearchCondition 과 같은 청크 단위로 member_archive 에 옮기고 member 에서 지운다 (결과의 deleted = 옮긴 행 수)
+    BulkDeleteResult archiveBySearchCondition(MemberSearchCondition condition);
+
+    //나이가 age 이상인 member 나이 +1 (벌크 update + member_change 기록, 끝나면 영속성 컨텍스트 clear)
+    int bulkAgePlus(int age);
+
+    //존재 여부만 확인 (select 1 ... limit 1, 없음 결과는 짧게 캐시)
+    boolean existsByUsername(String username);
+    boolean exists(MemberSearchCondition condition);
+
+    //팀, 나이별 회원 수 (팀이 없는 회원 제외)
+    List<TeamAgeCount> countByTeamAndAge();
 
 }
@@ -1,129 +1,881 @@
 package com.spring.jpadata.repository.jpadata;
 
 import com.querydsl.core.QueryResults;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.ExpressionUtils;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.spring.jpadata.dto.BulkDeleteResult;
+import com.spring.jpadata.dto.InvalidSearchConditionException;
+import com.spring.jpadata.dto.MemberBatchSearchResult;
 import com.spring.jpadata.dto.MemberSearchCondition;
 import com.spring.jpadata.dto.MemberTeamDto;
-import com.spring.jpadata.dto.QMemberTeamDto;
+import com.spring.jpadata.dto.QTeamAgeCount;
+import com.spring.jpadata.dto.TeamAgeCount;
 import com.spring.jpadata.entity.Member;
 import com.spring.jpadata.entity.QMember;
 import com.spring.jpadata.entity.QTeam;
+import com.spring.jpadata.entity.Team;
+import com.spring.jpadata.outbox.MemberChangeNotifier;
+import com.spring.jpadata.repository.LongIds;
+import com.spring.jpadata.search.UsernameMatch;
+import com.spring.jpadata.search.UsernameSearchIndex;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 
+import javax.persistence.Cache;
 import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.ToIntFunction;
 
 import static com.spring.jpadata.entity.QMember.*;
+import static com.spring.jpadata.entity.QMemberArchive.*;
 import static com.spring.jpadata.entity.QTeam.*;
 import static org.springframework.util.StringUtils.*;
 
 // + Impl를 꼭 맞추어주자!
+@Slf4j
 @RequiredArgsConstructor
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
+    //in절 하나에 바인딩할 최대 파라미터 수 (hibernate in_clause_parameter_padding 으로 2의 거듭제곱까지 패딩된다)
+    static final int IN_CHUNK_SIZE = 1000;
+    //이 개수를 넘으면 in절 대신 임시테이블에 넣고 조인한다
+    static final int TEMP_TABLE_THRESHOLD = 10_000;
+
+    //searchBatch 에서 쿼리 하나에 OR 로 묶는 최대 조건 수
+    static final int BATCH_CHUNK_SIZE = 100;
+
     private final JPAQueryFactory queryFactory;
+    private final EntityManager em;
+    private final MemberExistsCache existsCache;
+    private final MemberChangeNotifier memberChangeNotifier;
+    private final UsernameSearchIndex usernameSearchIndex;
+    private final PlatformTransactionManager transactionManager;
+    private final BulkDeleteProperties bulkDeleteProperties;
 
     @Override
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return search(condition, MemberFetchProfile.WITH_TEAM);
+    }
 
-        List<MemberTeamDto> memberTeamDtoList = queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
-                .from(member)
+    @Override
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        return searchPageSimple(condition, pageable, MemberFetchProfile.WITH_TEAM);
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        return searchPageComplex(condition, pageable, MemberFetchProfile.WITH_TEAM);
+    }
+
+    @Override
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable) {
+        return searchSlice(condition, pageable, MemberFetchProfile.WITH_TEAM);
+    }
+
+    @Override
+    public <T> List<T> search(MemberSearchCondition condition, MemberFetchProfile<T> profile) {
+        if (condition.hasTextSearch()) {
+            return textSearch(condition, profile);
+        }
+        if (condition.isIncludeArchived()) {
+            return searchWithArchive(condition, profile, 0, -1);
+        }
+
+        return joinTeam(queryFactory
+                .select(profile.getProjection())
+                .from(member), condition, profile)
                 .where(
                         userNameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe()))
-                .leftJoin(member.team, team)
                 .fetch();
-
-        return memberTeamDtoList;
     }
 
     //fetchResult() 사용
     @Override
-    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+    public <T> Page<T> searchPageSimple(MemberSearchCondition condition, Pageable pageable, MemberFetchProfile<T> profile) {
+        if (condition.hasTextSearch()) {
+            List<T> all = textSearch(condition, profile);
+            return new PageImpl<>(pageOf(all, pageable), pageable, all.size());
+        }
+        if (condition.isIncludeArchived()) {
+            List<T> content = searchWithArchive(condition, profile, pageable.getOffset(), pageable.getPageSize());
+            return new PageImpl<>(content, pageable, countWithArchive(condition));
+        }
 
-        QueryResults<MemberTeamDto> results = queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
-                .from(member)
+        QueryResults<T> results = joinTeam(queryFactory
+                .select(profile.getProjection())
+                .from(member), condition, profile)
                 .where(
                         userNameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe()))
-                .leftJoin(member.team, team)
                 .offset(pageable.getOffset()) // 몇 번째
                 .limit(pageable.getPageSize()) // 몇 개
                 .fetchResults();
 
-        List<MemberTeamDto> memberTeamDtoList = results.getResults();
+        List<T> content = results.getResults();
         long total = results.getTotal();
 
-        return new PageImpl<>(memberTeamDtoList, pageable,total);
+        return new PageImpl<>(content, pageable,total);
     }
 
     /**데이터의 내용과 전체 count를 별도로 조회하는 메소드*/
     @Override
-    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+    public <T> Page<T> searchPageComplex(MemberSearchCondition condition, Pageable pageable, MemberFetchProfile<T> profile) {
+        if (condition.hasTextSearch()) {
+            List<T> all = textSearch(condition, profile);
+            return new PageImpl<>(pageOf(all, pageable), pageable, all.size());
+        }
+        if (condition.isIncludeArchived()) {
+            List<T> content = searchWithArchive(condition, profile, pageable.getOffset(), pageable.getPageSize());
+            return PageableExecutionUtils.getPage(content, pageable, () -> countWithArchive(condition));
+        }
         //content
-        List<MemberTeamDto> memberTeamDtoList = queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
-                .from(member)
+        List<T> content = joinTeam(queryFactory
+                .select(profile.getProjection())
+                .from(member), condition, profile)
                 .where(
                         userNameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe()))
-                .leftJoin(member.team, team)
                 .offset(pageable.getOffset()) // 몇 번째
                 .limit(pageable.getPageSize()) // 몇 개
                 .fetch();
 
-
-        JPAQuery<Member> countQuery = queryFactory
-                .select(member)
-                .from(member)
+        //count 는 team 컬럼을 안 읽으므로 teamName 조건이 있을 때만 조인
+        JPAQuery<Long> countQuery = joinTeam(queryFactory
+                .select(member.count())
+                .from(member), condition, MemberFetchProfile.ID_ONLY)
                 .where(
                         userNameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()))
-                .leftJoin(member.team, team);
+                        ageLoe(condition.getAgeLoe()));
 
         /*  count 쿼리가 생략 가능한 경우 생략해서 처리🔽
             페이지 시작이면서 컨텐츠 사이즈가 페이지 사이즈보다 작을 때
             마지막 페이지 일 때 (offset + 컨텐츠 사이즈를 더해서 전체 사이즈 구함*/
-        return PageableExecutionUtils.getPage(memberTeamDtoList, pageable, () -> countQuery.fetchCount());
+        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+
+    }
+
+
+    /**
+     * count 쿼리 없이 pageSize + 1 건을 읽어서 한 건 더 있으면 hasNext
+     * offset 페이징끼리 순서가 흔들리지 않도록 member id 로 정렬한다
+     */
+    @Override
+    public <T> Slice<T> searchSlice(MemberSearchCondition condition, Pageable pageable, MemberFetchProfile<T> profile) {
+        if (condition.hasTextSearch()) {
+            List<T> all = textSearch(condition, profile);
+            return new SliceImpl<>(pageOf(all, pageable), pageable, all.size() > pageable.getOffset() + pageable.getPageSize());
+        }
+        List<T> content;
+        if (condition.isIncludeArchived()) {
+            content = searchWithArchive(condition, profile, pageable.getOffset(), pageable.getPageSize() + 1L);
+        } else {
+            content = joinTeam(queryFactory
+                    .select(profile.getProjection())
+                    .from(member), condition, profile)
+                    .where(
+                            userNameEq(condition.getUsername()),
+                            teamNameEq(condition.getTeamName()),
+                            ageGoe(condition.getAgeGoe()),
+                            ageLoe(condition.getAgeLoe()))
+                    .orderBy(member.id.asc())
+                    .offset(pageable.getOffset())
+                    .limit(pageable.getPageSize() + 1L)
+                    .fetch();
+        }
+
+        boolean hasNext = content.size() > pageable.getPageSize();
+        if (hasNext) {
+            content.remove(pageable.getPageSize());
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    /**
+     * 같은 shape 의 조건들은 where (조건1) or (조건2) ... 로 한 번에 읽고, 결과 행을 조건마다 메모리에서 다시 나눈다
+     * (H2 는 같은 컬럼 등호 OR 를 in 으로 바꿔서 인덱스를 탄다)
+     * 똑같은 조건은 한 번만 읽는다, usernameContains / usernameFuzzy 는 인덱스 순위가 있어서,
+     * includeArchived 는 두 테이블을 합쳐야 해서 search 로 따로 실행한다
+     * username 인덱스 후보는 트랜잭션 전에 받고 (인덱스 갱신이 자기 커넥션을 쓴다) 나머지는 readOnly 트랜잭션 하나
+     * -> DB 쿼리가 커넥션 하나에서 나가고, 커넥션 두 개를 동시에 잡지 않는다
+     */
+    @Override
+    public MemberBatchSearchResult searchBatch(List<MemberSearchCondition> conditions) {
+        Map<MemberSearchCondition, List<UsernameMatch>> matchesOf = new HashMap<>();
+        for (MemberSearchCondition condition : new LinkedHashSet<>(conditions)) {
+            if (condition.hasTextSearch()) {
+                matchesOf.put(condition, usernameMatches(condition));
+            }
+        }
+        return readOnly(status -> searchBatch(conditions, matchesOf));
+    }
+
+    private MemberBatchSearchResult searchBatch(List<MemberSearchCondition> conditions,
+                                                Map<MemberSearchCondition, List<UsernameMatch>> matchesOf) {
+        Map<MemberSearchCondition, List<MemberTeamDto>> resultOf = new HashMap<>();
+        Map<String, List<MemberSearchCondition>> byShape = new LinkedHashMap<>();
+        int queryCount = 0;
+        for (MemberSearchCondition condition : new LinkedHashSet<>(conditions)) {
+            if (condition.hasTextSearch()) {
+                resultOf.put(condition, textSearch(condition, matchesOf.get(condition), MemberFetchProfile.WITH_TEAM));
+                queryCount++;
+            } else if (condition.isIncludeArchived()) {
+                resultOf.put(condition, search(condition, MemberFetchProfile.WITH_TEAM));
+                queryCount += 2;
+            } else {
+                byShape.computeIfAbsent(condition.shape(), shape -> new ArrayList<>()).add(condition);
+            }
+        }
+
+        for (List<MemberSearchCondition> group : byShape.values()) {
+            for (int from = 0; from < group.size(); from += BATCH_CHUNK_SIZE) {
+                List<MemberSearchCondition> chunk = group.subList(from, Math.min(from + BATCH_CHUNK_SIZE, group.size()));
+                List<Predicate> predicates = new ArrayList<>(chunk.size());
+                for (MemberSearchCondition condition : chunk) {
+                    predicates.add(ExpressionUtils.allOf(
+                            userNameEq(condition.getUsername()),
+                            teamNameEq(condition.getTeamName()),
+                            ageGoe(condition.getAgeGoe()),
+                            ageLoe(condition.getAgeLoe())));
+                    resultOf.put(condition, new ArrayList<>());
+                }
+                //shape 가 같으니 teamName 조건 유무도 같다 -> 조인 방식은 첫 조건 기준
+                List<MemberTeamDto> rows = joinTeam(queryFactory
+                        .select(MemberFetchProfile.WITH_TEAM.getProjection())
+                        .from(member), chunk.get(0), MemberFetchProfile.WITH_TEAM)
+                        .where(ExpressionUtils.anyOf(predicates))
+                        .orderBy(member.id.asc())
+                        .fetch();
+                queryCount++;
+
+                for (MemberTeamDto row : rows) {
+                    for (MemberSearchCondition condition : chunk) {
+                        if (matches(condition, row)) {
+                            resultOf.get(condition).add(row);
+                        }
+                    }
+                }
+            }
+        }
+
+        List<List<MemberTeamDto>> results = new ArrayList<>(conditions.size());
+        for (MemberSearchCondition condition : conditions) {
+            results.add(resultOf.get(condition));
+        }
+        return new MemberBatchSearchResult(results, conditions.size(), queryCount, conditions.size() - queryCount);
+    }
+
+    //userNameEq, teamNameEq, ageGoe, ageLoe 와 같은 판단을 읽어 온 행에 (OR 로 묶어 읽은 결과를 조건별로 나눌 때)
+    private static boolean matches(MemberSearchCondition condition, MemberTeamDto row) {
+        return (!hasText(condition.getUsername()) || condition.getUsername().equals(row.getUsername()))
+                && (!hasText(condition.getTeamName()) || condition.getTeamName().equals(row.getTeamName()))
+                && (condition.getAgeGoe() == null || row.getAge() >= condition.getAgeGoe())
+                && (condition.getAgeLoe() == null || row.getAge() <= condition.getAgeLoe());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Member> findByNames(Collection<String> names) {
+        //null, 중복 제거 -> 청크끼리 결과가 겹치지 않으므로 그냥 합치면 된다
+        List<String> distinctNames = new ArrayList<>(new LinkedHashSet<>(names));
+        distinctNames.removeIf(Objects::isNull);
+        if (distinctNames.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (distinctNames.size() > TEMP_TABLE_THRESHOLD) {
+            return findByNamesWithTempTable(distinctNames);
+        }
+
+        List<Member> result = new ArrayList<>();
+        for (int from = 0; from < distinctNames.size(); from += IN_CHUNK_SIZE) {
+            List<String> chunk = distinctNames.subList(from, Math.min(from + IN_CHUNK_SIZE, distinctNames.size()));
+            result.addAll(queryFactory
+                    .selectFrom(member)
+                    .where(member.username.in(chunk))
+                    .fetch());
+        }
+        return result;
+    }
+
+    /**
+     * 벌크 update 는 Hibernate 이벤트를 타지 않으므로 바뀔 행을 먼저 member_change 에 insert-select 로 남기고 update 한다
+     * 같은 트랜잭션이라 둘 다 커밋되거나 둘 다 롤백된다
+     */
+    @Override
+    @Transactional
+    public int bulkAgePlus(int age) {
+        em.flush();
+        em.createNativeQuery("insert into member_change" +
+                        "(member_id, type, username, age, team_id, old_age, old_team_id, created_at)" +
+                        " select m.member_id, 'UPDATE', m.username, m.age + 1, m.team_id, m.age, m.team_id, current_timestamp" +
+                        " from member m where m.age >= ? order by m.member_id")
+                .setParameter(1, age)
+                .executeUpdate();
+        long count = queryFactory
+                .update(member)
+                .set(member.age, member.age.add(1))
+                .where(member.age.goe(age))
+                .execute();
+        em.clear();
+        memberChangeNotifier.changed();
+        return (int) count;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Member> findAllByIds(long[] ids) {
+        long[] distinctIds = LongIds.distinctSorted(ids);
+        List<Member> result = new ArrayList<>(distinctIds.length);
+        for (int from = 0; from < distinctIds.length; from += IN_CHUNK_SIZE) {
+            result.addAll(queryFactory
+                    .selectFrom(member)
+                    .where(member.id.in(LongIds.view(distinctIds, from, Math.min(from + IN_CHUNK_SIZE, distinctIds.length))))
+                    .fetch());
+        }
+        return result;
+    }
+
+    //id 만 읽으므로 엔티티 / Long 리스트 없이 JDBC 로 바로 long[] 에 담는다 (아직 flush 안 된 변경은 먼저 flush)
+    @Override
+    @Transactional(readOnly = true)
+    public long[] findIdsByTeamIds(long[] teamIds) {
+        long[] distinctTeamIds = LongIds.distinctSorted(teamIds);
+        em.flush();
+        long[] ids = em.unwrap(Session.class).doReturningWork(connection -> {
+            LongIds.Builder builder = new LongIds.Builder();
+            for (int from = 0; from < distinctTeamIds.length; from += IN_CHUNK_SIZE) {
+                int to = Math.min(from + IN_CHUNK_SIZE, distinctTeamIds.length);
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "select m.member_id from member m where m.team_id in (" + LongIds.placeholders(to - from) + ")")) {
+                    LongIds.bind(statement, 1, distinctTeamIds, from, to);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            builder.add(resultSet.getLong(1));
+                        }
+                    }
+                }
+            }
+            return builder.toArray();
+        });
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    @Override
+    @Transactional
+    public int deleteByIds(long[] ids) {
+        return deleteIds(LongIds.distinctSorted(ids));
+    }
+
+    /**
+     * 청크마다 REQUIRES_NEW 트랜잭션: 다음 청크 id 를 member id 순으로 (keyset, 마지막 id 다음부터) 읽고 deleteIds
+     * -> 트랜잭션이 짧아서 락을 오래 잡지 않고, 중간에 실패해도 이미 커밋된 청크는 남는다
+     * usernameContains / usernameFuzzy 조건은 인덱스 후보 id 를 (max-results 로 자르지 않고) 전부 먼저 받아 id 순 청크로 나누고
+     * 청크마다 나머지 조건으로 거른다 -> 시작한 뒤에 새로 맞게 된 member 는 지우지 않는다
+     * 청크가 커밋될 때마다 그 청크의 member 를 캐시에서 뺀다
+     * 호출한 쪽에 트랜잭션이 있으면 그 영속성 컨텍스트에서도 지운 member 를 evict 한다
+     * (그 트랜잭션이 같은 member 를 수정 중이면 락 대기가 생기므로 트랜잭션 밖에서 부르는 것이 좋다)
+     */
+    @Override
+    public BulkDeleteResult deleteBySearchCondition(MemberSearchCondition condition) {
+        return inChunks("deleteBySearchCondition", condition, this::deleteIds);
+    }
+
+    /**
+     * deleteBySearchCondition 과 같은 청크 / 트랜잭션 단위, 청크마다 member_archive 에 insert-select 후 deleteIds
+     * member_change 에는 DELETE 로 남는다 -> 통계, username 인덱스, 캐시는 지운 것과 똑같이 member 를 뺀다
+     * 되돌리기 (member_archive -> member) 는 아직 없다
+     */
+    @Override
+    public BulkDeleteResult archiveBySearchCondition(MemberSearchCondition condition) {
+        return inChunks("archiveBySearchCondition", condition, this::archiveIds);
+    }
+
+    //청크 id (정렬됨) 마다 새 트랜잭션에서 work 실행, work 는 처리한 행 수를 돌려준다
+    private BulkDeleteResult inChunks(String action, MemberSearchCondition condition, ToIntFunction<long[]> work) {
+        rejectIncludeArchived(condition, action);
+        rejectEmpty(condition, action);
+        TransactionTemplate chunkTransaction = new TransactionTemplate(transactionManager);
+        chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        int chunkSize = bulkDeleteProperties.getChunkSize();
+
+        long[] candidates = condition.hasTextSearch()
+                ? LongIds.distinctSorted(usernameMatches(condition).stream().mapToLong(UsernameMatch::getMemberId).toArray())
+                : null;
+
+        long startedAt = System.nanoTime();
+        long deleted = 0;
+        int chunks = 0;
+        long lastId = Long.MIN_VALUE;
+        int offset = 0;
+        while (true) {
+            long[] chunk;
+            if (candidates != null) {
+                if (offset >= candidates.length) {
+                    break;
+                }
+                long[] page = Arrays.copyOfRange(candidates, offset, Math.min(offset + chunkSize, candidates.length));
+                offset += page.length;
+                chunk = chunkTransaction.execute(status -> filterIds(condition, page));
+                if (chunk.length == 0) {
+                    continue;
+                }
+            } else {
+                long after = lastId;
+                chunk = chunkTransaction.execute(status -> nextChunkIds(condition, after, chunkSize));
+                if (chunk.length == 0) {
+                    break;
+                }
+                lastId = chunk[chunk.length - 1];
+            }
+            Integer count = chunkTransaction.execute(status -> work.applyAsInt(chunk));
+            deleted += count;
+            chunks++;
+            evict(chunk);
+            pause(action);
+        }
+
+        long elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+        double rowsPerSecond = elapsedMillis == 0 ? deleted * 1000.0 : deleted * 1000.0 / elapsedMillis;
+        log.info("{} [{}]: {} rows in {} chunks, {} ms ({} rows/s)",
+                action, condition.shape(), deleted, chunks, elapsedMillis, Math.round(rowsPerSecond));
+        return new BulkDeleteResult(deleted, chunks, elapsedMillis, rowsPerSecond);
+    }
 
+    private long[] nextChunkIds(MemberSearchCondition condition, long afterId, int chunkSize) {
+        return joinTeam(queryFactory
+                .select(member.id)
+                .from(member), condition, MemberFetchProfile.ID_ONLY)
+                .where(
+                        member.id.gt(afterId),
+                        userNameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()))
+                .orderBy(member.id.asc())
+                .limit(chunkSize)
+                .fetch()
+                .stream()
+                .mapToLong(Long::longValue)
+                .toArray();
+    }
+
+    //정렬된 후보 id 중 나머지 조건 (username / teamName / age) 에 맞는 것만, id 순
+    private long[] filterIds(MemberSearchCondition condition, long[] candidates) {
+        LongIds.Builder ids = new LongIds.Builder();
+        for (int from = 0; from < candidates.length; from += IN_CHUNK_SIZE) {
+            List<Long> matched = joinTeam(queryFactory
+                    .select(member.id)
+                    .from(member), condition, MemberFetchProfile.ID_ONLY)
+                    .where(
+                            member.id.in(LongIds.view(candidates, from, Math.min(from + IN_CHUNK_SIZE, candidates.length))),
+                            userNameEq(condition.getUsername()),
+                            teamNameEq(condition.getTeamName()),
+                            ageGoe(condition.getAgeGoe()),
+                            ageLoe(condition.getAgeLoe()))
+                    .orderBy(member.id.asc())
+                    .fetch();
+            for (Long id : matched) {
+                ids.add(id);
+            }
+        }
+        return ids.toArray();
+    }
+
+    /**
+     * bulkAgePlus 와 같은 방식: 지울 행을 member_change 에 DELETE 로 먼저 남기고 delete (같은 트랜잭션)
+     * id 는 청크마다 JDBC setLong 으로 바인딩, ids 는 정렬 + 중복 제거된 상태
+     */
+    private int deleteIds(long[] ids) {
+        em.flush();
+        int deleted = em.unwrap(Session.class).doReturningWork(connection -> {
+            int count = 0;
+            for (int from = 0; from < ids.length; from += IN_CHUNK_SIZE) {
+                int to = Math.min(from + IN_CHUNK_SIZE, ids.length);
+                String in = "(" + LongIds.placeholders(to - from) + ")";
+                try (PreparedStatement record = connection.prepareStatement("insert into member_change" +
+                        "(member_id, type, username, age, team_id, old_age, old_team_id, created_at)" +
+                        " select m.member_id, 'DELETE', m.username, m.age, m.team_id, null, null, current_timestamp" +
+                        " from member m where m.member_id in " + in + " order by m.member_id");
+                     PreparedStatement delete = connection.prepareStatement(
+                             "delete from member where member_id in " + in)) {
+                    LongIds.bind(record, 1, ids, from, to);
+                    record.executeUpdate();
+                    LongIds.bind(delete, 1, ids, from, to);
+                    count += delete.executeUpdate();
+                }
+            }
+            return count;
+        });
+        em.clear();
+        if (deleted > 0) {
+            memberChangeNotifier.changed();
+        }
+        return deleted;
+    }
+
+    //member_archive 로 복사 (archived_at = 지금) 후 deleteIds, 같은 트랜잭션
+    private int archiveIds(long[] ids) {
+        em.flush();
+        em.unwrap(Session.class).doWork(connection -> {
+            for (int from = 0; from < ids.length; from += IN_CHUNK_SIZE) {
+                int to = Math.min(from + IN_CHUNK_SIZE, ids.length);
+                try (PreparedStatement copy = connection.prepareStatement("insert into member_archive" +
+                        "(member_id, username, age, team_id, archived_at)" +
+                        " select m.member_id, m.username, m.age, m.team_id, current_timestamp" +
+                        " from member m where m.member_id in (" + LongIds.placeholders(to - from) + ")")) {
+                    LongIds.bind(copy, 1, ids, from, to);
+                    copy.executeUpdate();
+                }
+            }
+        });
+        return deleteIds(ids);
+    }
+
+    //JDBC 로 지웠으므로 Hibernate 가 모른다 -> 2차 캐시와 (있으면) 호출한 쪽 영속성 컨텍스트에서 직접 뺀다
+    private void evict(long[] deletedIds) {
+        Cache cache = em.getEntityManagerFactory().getCache();
+        for (long id : deletedIds) {
+            cache.evict(Member.class, id);
+        }
+        em.getEntityManagerFactory().unwrap(SessionFactory.class).getCache()
+                .evictCollectionData(Team.class.getName() + ".members");
+
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            SessionImplementor session = em.unwrap(SessionImplementor.class);
+            EntityPersister persister = session.getFactory().getMetamodel().entityPersister(Member.class);
+            for (long id : deletedIds) {
+                Object entity = session.getPersistenceContextInternal().getEntity(session.generateEntityKey(id, persister));
+                if (entity != null) {
+                    session.evict(entity);
+                }
+            }
+        }
+    }
+
+    //읽기 전용 트랜잭션 하나 -> 안의 쿼리가 커넥션 하나에서 나가고 exists 캐시를 쓸 수 있다
+    private <T> T readOnly(TransactionCallback<T> action) {
+        TransactionTemplate readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setReadOnly(true);
+        return readTransaction.execute(action);
+    }
+
+    private void pause(String action) {
+        long pauseMs = bulkDeleteProperties.getPauseMs();
+        if (pauseMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(pauseMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(action + " interrupted", e);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public boolean existsByUsername(String username) {
+        return exists("username:" + username, queryFactory
+                .selectOne()
+                .from(member)
+                .where(member.username.eq(username)));
+    }
+
+    //조건이 없으면 member 가 하나라도 있는지, teamName 조건이 있을 때만 team 조인
+    //username 인덱스 후보는 searchBatch 처럼 트랜잭션 전에 받는다
+    @Override
+    public boolean exists(MemberSearchCondition condition) {
+        rejectIncludeArchived(condition, "exists");
+        if (condition.hasTextSearch()) {
+            List<UsernameMatch> matches = usernameMatches(condition);
+            return readOnly(status -> !textSearch(condition, matches, MemberFetchProfile.ID_ONLY).isEmpty());
+        }
+        return readOnly(status -> {
+            JPAQuery<Integer> query = queryFactory
+                    .selectOne()
+                    .from(member);
+            if (hasText(condition.getTeamName())) {
+                query.join(member.team, team);
+            }
+            return exists("search:" + condition, query
+                    .where(
+                            userNameEq(condition.getUsername()),
+                            teamNameEq(condition.getTeamName()),
+                            ageGoe(condition.getAgeGoe()),
+                            ageLoe(condition.getAgeLoe())));
+        });
+    }
+
+    //쓰기 트랜잭션 안에서는 아직 flush 안 된 변경이 있을 수 있으므로 캐시를 건너뛴다
+    private boolean exists(String cacheKey, JPAQuery<Integer> query) {
+        boolean cacheable = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        if (cacheable && existsCache.isKnownAbsent(cacheKey)) {
+            return false;
+        }
+        long generation = existsCache.generation();
+        boolean exists = query.fetchFirst() != null;
+        if (!exists && cacheable) {
+            existsCache.markAbsent(cacheKey, generation);
+        }
+        return exists;
     }
 
+    //member.team.id 는 조인 없이 team_id 컬럼으로 묶인다 (idx_member_team_age 만 읽는다)
+    @Override
+    public List<TeamAgeCount> countByTeamAndAge() {
+        return queryFactory
+                .select(new QTeamAgeCount(member.team.id, member.age, member.count()))
+                .from(member)
+                .where(member.team.isNotNull())
+                .groupBy(member.team.id, member.age)
+                .fetch();
+    }
+
+    /**아주 큰 컬렉션은 커넥션 로컬 임시테이블에 batch insert 후 조인 (파라미터 수 제한, 쿼리 플랜 폭증 없음)*/
+    private List<Member> findByNamesWithTempTable(List<String> names) {
+        Session session = em.unwrap(Session.class);
+        session.doWork(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("create local temporary table if not exists member_name_filter" +
+                        "(username varchar(255) primary key) on commit delete rows transactional");
+                statement.execute("delete from member_name_filter");
+            }
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "insert into member_name_filter(username) values (?)")) {
+                for (int i = 0; i < names.size(); i++) {
+                    insert.setString(1, names.get(i));
+                    insert.addBatch();
+                    if ((i + 1) % IN_CHUNK_SIZE == 0) {
+                        insert.executeBatch();
+                    }
+                }
+                insert.executeBatch();
+            }
+        });
+
+        try {
+            @SuppressWarnings("unchecked")
+            List<Member> result = em.createNativeQuery(
+                            "select m.* from member m join member_name_filter f on m.username = f.username",
+                            Member.class)
+                    .getResultList();
+            return result;
+        } finally {
+            session.doWork(connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("delete from member_name_filter");
+                }
+            });
+        }
+    }
+
+    /**
+     * usernameContains / usernameFuzzy: 인덱스에서 관련도 순 member id 를 받고
+     * 나머지 조건은 관련도 순 IN_CHUNK_SIZE 개씩 id in (...) 과 함께 DB 에서 거른다 (페이징은 메모리에서)
+     * 거른 결과가 인덱스의 maxResults 에 차면 남은 후보는 읽지 않는다 -> 전체 개수도 maxResults 까지
+     */
+    private <T> List<T> textSearch(MemberSearchCondition condition, MemberFetchProfile<T> profile) {
+        return textSearch(condition, usernameMatches(condition), profile);
+    }
+
+    //matches: usernameMatches(condition), 트랜잭션 밖에서 미리 받아 둔 것
+    private <T> List<T> textSearch(MemberSearchCondition condition, List<UsernameMatch> matches, MemberFetchProfile<T> profile) {
+        int maxResults = usernameSearchIndex.getMaxResults();
+
+        List<T> result = new ArrayList<>();
+        for (int from = 0; from < matches.size() && result.size() < maxResults; from += IN_CHUNK_SIZE) {
+            Map<Long, Integer> rank = new HashMap<>();
+            for (UsernameMatch match : matches.subList(from, Math.min(from + IN_CHUNK_SIZE, matches.size()))) {
+                rank.put(match.getMemberId(), rank.size());
+            }
+            //프로필에 id 가 없을 수도 있으므로 (SUMMARY) 정렬용 id 를 같이 읽는다
+            List<Tuple> rows = joinTeam(queryFactory
+                    .select(member.id, profile.getProjection())
+                    .from(member), condition, profile)
+                    .where(
+                            member.id.in(rank.keySet()),
+                            userNameEq(condition.getUsername()),
+                            teamNameEq(condition.getTeamName()),
+                            ageGoe(condition.getAgeGoe()),
+                            ageLoe(condition.getAgeLoe()))
+                    .fetch();
+            rows.sort(Comparator.comparing(row -> rank.get(row.get(member.id))));
+            for (int i = 0; i < rows.size() && result.size() < maxResults; i++) {
+                result.add(rows.get(i).get(profile.getProjection()));
+            }
+        }
+        return result;
+    }
+
+    //member_archive 를 읽지 않는 경로에서 includeArchived 를 조용히 무시하지 않도록 (컨트롤러에서 400)
+    private static void rejectIncludeArchived(MemberSearchCondition condition, String unsupportedBy) {
+        if (condition.isIncludeArchived()) {
+            throw new InvalidSearchConditionException("includeArchived is not supported with " + unsupportedBy);
+        }
+    }
+
+    //조건이 하나도 없으면 member 전체가 대상이 된다 -> 조건 삭제 / 보관에서는 실수로 보고 거절
+    private static void rejectEmpty(MemberSearchCondition condition, String action) {
+        if ("none".equals(condition.shape())) {
+            throw new InvalidSearchConditionException(action + " requires at least one condition");
+        }
+    }
+
+    //관련도 순 전체 후보 (usernameContains 가 있으면 그쪽)
+    //인덱스가 뒤처져 있으면 REQUIRES_NEW 트랜잭션으로 따라잡으므로 호출한 쪽 트랜잭션 밖에서 부른다 (커넥션 두 개를 동시에 잡지 않도록)
+    private List<UsernameMatch> usernameMatches(MemberSearchCondition condition) {
+        rejectIncludeArchived(condition, "usernameContains / usernameFuzzy");
+        return hasText(condition.getUsernameContains())
+                ? usernameSearchIndex.contains(condition.getUsernameContains())
+                : usernameSearchIndex.fuzzy(condition.getUsernameFuzzy());
+    }
+
+    /**
+     * includeArchived: member, member_archive 를 같은 조건으로 각각 id 순 offset + limit 건까지 읽고 id 순으로 합쳐 자른다
+     * (JPQL 에 union 이 없다, 보관된 id 는 member 에서 지워진 id 라 겹치지 않는다)
+     * 뒤 페이지일수록 두 테이블에서 offset 만큼 더 읽는다, limit < 0 이면 전부
+     */
+    private <T> List<T> searchWithArchive(MemberSearchCondition condition, MemberFetchProfile<T> profile, long offset, long limit) {
+        JPAQuery<Tuple> hotQuery = joinTeam(queryFactory
+                .select(member.id, profile.getProjection())
+                .from(member), condition, profile)
+                .where(
+                        userNameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()))
+                .orderBy(member.id.asc());
+        JPAQuery<Tuple> archivedQuery = joinArchiveTeam(queryFactory
+                .select(memberArchive.id, profile.getArchiveProjection())
+                .from(memberArchive), condition, profile)
+                .where(archivedWhere(condition))
+                .orderBy(memberArchive.id.asc());
+        if (limit >= 0) {
+            hotQuery.limit(offset + limit);
+            archivedQuery.limit(offset + limit);
+        }
+        List<Tuple> hot = hotQuery.fetch();
+        List<Tuple> archived = archivedQuery.fetch();
+
+        List<T> result = new ArrayList<>();
+        int h = 0;
+        int a = 0;
+        long skipped = 0;
+        while ((h < hot.size() || a < archived.size()) && (limit < 0 || result.size() < limit)) {
+            T row;
+            if (a == archived.size()
+                    || (h < hot.size() && hot.get(h).get(member.id) < archived.get(a).get(memberArchive.id))) {
+                row = hot.get(h++).get(profile.getProjection());
+            } else {
+                row = archived.get(a++).get(profile.getArchiveProjection());
+            }
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                result.add(row);
+            }
+        }
+        return result;
+    }
+
+    private long countWithArchive(MemberSearchCondition condition) {
+        Long hot = joinTeam(queryFactory
+                .select(member.count())
+                .from(member), condition, MemberFetchProfile.ID_ONLY)
+                .where(
+                        userNameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()))
+                .fetchOne();
+        Long archived = joinArchiveTeam(queryFactory
+                .select(memberArchive.count())
+                .from(memberArchive), condition, MemberFetchProfile.ID_ONLY)
+                .where(archivedWhere(condition))
+                .fetchOne();
+        return (hot == null ? 0 : hot) + (archived == null ? 0 : archived);
+    }
+
+    private static <T> List<T> pageOf(List<T> all, Pageable pageable) {
+        int from = (int) Math.min(pageable.getOffset(), all.size());
+        int to = Math.min(from + pageable.getPageSize(), all.size());
+        return new ArrayList<>(all.subList(from, to));
+    }
+
+    //teamName 조건이 있으면 team 이 없는 member 는 어차피 걸러지므로 inner join 으로 바꾼다
+    //-> H2 가 idx_team_name 으로 team 을 먼저 찾고 idx_member_team_age 로 member 를 찾아간다 (left join 이면 member 풀스캔)
+    //team 컬럼을 안 읽는 프로필이면 조인하지 않는다 (ManyToOne left join 이라 빼도 행 수는 같다)
+    private <Q> JPAQuery<Q> joinTeam(JPAQuery<Q> query, MemberSearchCondition condition, MemberFetchProfile<?> profile) {
+        if (hasText(condition.getTeamName())) {
+            return query.join(member.team, team);
+        }
+        if (profile.isTeamSelected()) {
+            return query.leftJoin(member.team, team);
+        }
+        return query;
+    }
+
+    //joinTeam 의 member_archive 버전 (team 별칭이 같아서 teamNameEq, 프로필의 team 컬럼을 그대로 쓴다)
+    private <Q> JPAQuery<Q> joinArchiveTeam(JPAQuery<Q> query, MemberSearchCondition condition, MemberFetchProfile<?> profile) {
+        if (hasText(condition.getTeamName())) {
+            return query.join(memberArchive.team, team);
+        }
+        if (profile.isTeamSelected()) {
+            return query.leftJoin(memberArchive.team, team);
+        }
+        return query;
+    }
+
+    //userNameEq, teamNameEq, ageGoe, ageLoe 를 member_archive 컬럼으로
+    private Predicate[] archivedWhere(MemberSearchCondition condition) {
+        return new Predicate[]{
+                hasText(condition.getUsername()) ? memberArchive.username.eq(condition.getUsername()) : null,
+                teamNameEq(condition.getTeamName()),
+                condition.getAgeGoe() != null ? memberArchive.age.goe(condition.getAgeGoe()) : null,
+                condition.getAgeLoe() != null ? memberArchive.age.loe(condition.getAgeLoe()) : null};
+    }
 
     private BooleanExpression userNameEq(String username) {
         if (hasText(username)) {
@@ -12,6 +12,7 @@ import com.spring.jpadata.dto.QMemberTeamDto;
 import com.spring.jpadata.entity.Member;
 import com.spring.jpadata.entity.QMember;
 import com.spring.jpadata.entity.QTeam;
+import com.spring.jpadata.repository.LongIds;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
@@ -19,6 +20,7 @@ import org.springframework.util.StringUtils;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.swing.text.html.Option;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -30,10 +32,12 @@ import static com.spring.jpadata.entity.QTeam.team;
 @RequiredArgsConstructor
 public class MemberJpaRepository {
 
-    private EntityManager em;
+    private final EntityManager em;
 
     private final JPAQueryFactory queryFactory; // 메인application에 bean 으로 등록
 
+    static final int IN_CHUNK_SIZE = 1000;
+
 
 
     //insert
@@ -54,6 +58,36 @@ public class MemberJpaRepository {
     }
 
 
+    //여러 id 한번에 (long[] 을 복사 없이 List<Long> 으로 보여주고 1000 개씩 in 절)
+    public List<Member> findByIds(long[] ids) {
+        long[] distinctIds = LongIds.distinctSorted(ids);
+        List<Member> result = new ArrayList<>(distinctIds.length);
+        for (int from = 0; from < distinctIds.length; from += IN_CHUNK_SIZE) {
+            result.addAll(em.createQuery("select m from Member m where m.id in :ids", Member.class)
+                    .setParameter("ids", LongIds.view(distinctIds, from, Math.min(from + IN_CHUNK_SIZE, distinctIds.length)))
+                    .getResultList());
+        }
+        return result;
+    }
+
+    //엔티티로 읽어서 em.remove -> Hibernate 이벤트로 member_change 가 남는다 (MemberChangeRecorder)
+    //전부 영속성 컨텍스트에 올리고 한 건씩 delete 하므로 적은 수의 id 용
+    //많은 id 는 MemberRepository.deleteByIds (JDBC 로 청크마다 member_change insert-select + delete)
+    public int deleteByIds(long[] ids) {
+        List<Member> members = findByIds(ids);
+        members.forEach(em::remove);
+        return members.size();
+    }
+
+    //팀에 속한 member id (오름차순), 결과 리스트 없이 스트림에서 바로 long[]
+    public long[] findIdsByTeamId(long teamId) {
+        return em.createQuery("select m.id from Member m where m.team.id = :teamId order by m.id", Long.class)
+                .setParameter("teamId", teamId)
+                .getResultStream()
+                .mapToLong(Long::longValue)
+                .toArray();
+    }
+
     //select all
     public List<Member> findAll() {
         return em.createQuery("select m from Member m", Member.class)
@@ -222,6 +256,15 @@ public class MemberJpaRepository {
 
     }
 
+    //있는지만 볼 때는 count 대신 한 건만 (select 1 ... limit 1)
+    public boolean existsByAge(int age) {
+        return !em.createQuery("select 1 from Member m where m.age =:age")
+                .setParameter("age", age)
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
+    }
+
 
 
 }
@@ -0,0 +1,140 @@
+package com.spring.jpadata.repository.reactive;
+
+import com.spring.jpadata.dto.InvalidSearchConditionException;
+import com.spring.jpadata.dto.MemberSearchCondition;
+import com.spring.jpadata.dto.MemberTeamDto;
+import io.r2dbc.spi.Row;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * R2DBC 논블로킹 회원 검색 (MemberRepositoryImpl.search 와 같은 조건, 같은 조인 규칙)
+ * 조건 메소드 이름도 MemberRepositoryImpl 과 맞춰 두었다 -> 한쪽을 바꾸면 다른 쪽도 같이 바꿀 것
+ * usernameContains / usernameFuzzy (UsernameSearchIndex 는 JPA 쪽에만 있다), includeArchived 조건은 InvalidSearchConditionException
+ */
+@Repository
+@RequiredArgsConstructor
+public class MemberReactiveRepository {
+
+    private static final String SELECT = "select m.member_id, m.username, m.age, t.team_id, t.name as team_name" +
+            " from member m";
+
+    private final DatabaseClient databaseClient;
+
+    public Flux<MemberTeamDto> search(MemberSearchCondition condition) {
+        checkSupported(condition);
+        Map<String, Object> binds = new LinkedHashMap<>();
+        String sql = SELECT + joinTeam(condition) + where(condition, binds, null) + " order by m.member_id";
+        return query(sql, binds);
+    }
+
+    /**
+     * member_id 기준 keyset 페이지를 구독자가 요청할 때마다 하나씩 가져온다
+     * (다음 페이지 쿼리는 앞 페이지가 다 소비되고 더 요청이 올 때 나간다)
+     * pageSize 가 1 보다 작으면 InvalidSearchConditionException
+     */
+    public Flux<MemberTeamDto> searchPaged(MemberSearchCondition condition, int pageSize) {
+        if (pageSize < 1) {
+            throw new InvalidSearchConditionException("pageSize must be positive: " + pageSize);
+        }
+        checkSupported(condition);
+        return page(condition, null, pageSize)
+                .expand(page -> page.size() < pageSize
+                        ? Mono.empty()
+                        : page(condition, page.get(page.size() - 1).getMemberId(), pageSize))
+                .flatMapIterable(Function.identity(), 1);
+    }
+
+    //조용히 무시하면 조건보다 넓은 결과가 나가므로 쿼리 전에 거절한다
+    private static void checkSupported(MemberSearchCondition condition) {
+        if (condition.hasTextSearch()) {
+            throw new InvalidSearchConditionException("usernameContains / usernameFuzzy are not supported by reactive search");
+        }
+        if (condition.isIncludeArchived()) {
+            throw new InvalidSearchConditionException("includeArchived is not supported by reactive search");
+        }
+    }
+
+    private Mono<List<MemberTeamDto>> page(MemberSearchCondition condition, Long afterMemberId, int pageSize) {
+        Map<String, Object> binds = new LinkedHashMap<>();
+        String sql = SELECT + joinTeam(condition) + where(condition, binds, afterMemberId)
+                + " order by m.member_id limit :pageSize";
+        binds.put("pageSize", pageSize);
+        return query(sql, binds).collectList();
+    }
+
+    private Flux<MemberTeamDto> query(String sql, Map<String, Object> binds) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql);
+        for (Map.Entry<String, Object> bind : binds.entrySet()) {
+            spec = spec.bind(bind.getKey(), bind.getValue());
+        }
+        return spec.map((row, metadata) -> toDto(row)).all();
+    }
+
+    private static MemberTeamDto toDto(Row row) {
+        Integer age = row.get("age", Integer.class);
+        return new MemberTeamDto(
+                row.get("member_id", Long.class),
+                row.get("username", String.class),
+                age != null ? age : 0,
+                row.get("team_id", Long.class),
+                row.get("team_name", String.class));
+    }
+
+    //MemberRepositoryImpl.joinTeam 과 같은 규칙 (teamName 조건이 있으면 inner join)
+    private static String joinTeam(MemberSearchCondition condition) {
+        return (hasText(condition.getTeamName()) ? " join" : " left join") + " team t on m.team_id = t.team_id";
+    }
+
+    private static String where(MemberSearchCondition condition, Map<String, Object> binds, Long afterMemberId) {
+        List<String> predicates = new ArrayList<>();
+        userNameEq(condition.getUsername(), predicates, binds);
+        teamNameEq(condition.getTeamName(), predicates, binds);
+        ageGoe(condition.getAgeGoe(), predicates, binds);
+        ageLoe(condition.getAgeLoe(), predicates, binds);
+        if (afterMemberId != null) {
+            predicates.add("m.member_id > :afterMemberId");
+            binds.put("afterMemberId", afterMemberId);
+        }
+        return predicates.isEmpty() ? "" : " where " + String.join(" and ", predicates);
+    }
+
+    private static void userNameEq(String username, List<String> predicates, Map<String, Object> binds) {
+        if (hasText(username)) {
+            predicates.add("m.username = :username");
+            binds.put("username", username);
+        }
+    }
+
+    private static void teamNameEq(String teamName, List<String> predicates, Map<String, Object> binds) {
+        if (hasText(teamName)) {
+            predicates.add("t.name = :teamName");
+            binds.put("teamName", teamName);
+        }
+    }
+
+    private static void ageGoe(Integer ageGoe, List<String> predicates, Map<String, Object> binds) {
+        if (ageGoe != null) {
+            predicates.add("m.age >= :ageGoe");
+            binds.put("ageGoe", ageGoe);
+        }
+    }
+
+    private static void ageLoe(Integer ageLoe, List<String> predicates, Map<String, Object> binds) {
+        if (ageLoe != null) {
+            predicates.add("m.age <= :ageLoe");
+            binds.put("ageLoe", ageLoe);
+        }
+    }
+}
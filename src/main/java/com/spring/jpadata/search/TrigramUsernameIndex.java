@@ -0,0 +1,348 @@
+package com.spring.jpadata.search;
+
+import com.spring.jpadata.dto.MemberUsername;
+import com.spring.jpadata.entity.MemberChange;
+import com.spring.jpadata.outbox.MemberChangeBatch;
+import com.spring.jpadata.outbox.MemberChangeFeed;
+import com.spring.jpadata.outbox.MemberChangeListener;
+import com.spring.jpadata.outbox.MemberChangePosition;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * 프로세스 안 trigram 역색인 (username 부분 문자열 / 유사 검색)
+ * - username 을 소문자로 바꿔 "  abc " 처럼 앞 2칸 뒤 1칸 공백을 붙이고 3글자씩 잘라 trigram -> 문서 번호 목록을 만든다
+ * - contains: 검색어 trigram 목록을 전부 교집합 한 뒤 실제로 포함하는지 확인 (3글자 미만은 메모리에서 전체 확인)
+ * - fuzzy: trigram 을 하나라도 공유하는 문서의 jaccard 유사도 (공유 / 합집합) 가 min-similarity 이상
+ * - member_change 피드를 따라가며 갱신한다 (검색할 때 밀린 변경만 반영), 처음 / onReload 후에는 전체 적재
+ * 문서 번호는 추가만 하고 지운 문서는 표시만 해둔다 -> 지운 문서가 절반을 넘으면 메모리에서 다시 색인
+ */
+@Slf4j
+@Component
+public class TrigramUsernameIndex implements UsernameSearchIndex, MemberChangeListener {
+
+    private static final int FEED_BATCH_SIZE = 1000;
+    private static final int COMPACT_MIN_DELETED = 1000;
+
+    private final EntityManager em;
+    private final MemberChangeFeed memberChangeFeed;
+    private final TransactionTemplate snapshotTransaction;
+    private final int maxResults;
+    private final double minSimilarity;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object refreshMonitor = new Object();
+    private Map<String, IntList> postings = new HashMap<>();
+    private Map<Long, Integer> docOf = new HashMap<>();
+    private String[] usernames = new String[1024];
+    private long[] memberIds = new long[1024];
+    private int[] gramCounts = new int[1024];
+    private int docCount;
+    private int deletedCount;
+    private long offset;
+    private volatile boolean stale = true;
+
+    public TrigramUsernameIndex(EntityManager em, MemberChangeFeed memberChangeFeed,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${jpadata.username-index.max-results:10000}") int maxResults,
+                                @Value("${jpadata.username-index.min-similarity:0.3}") double minSimilarity) {
+        this.em = em;
+        this.memberChangeFeed = memberChangeFeed;
+        this.maxResults = maxResults;
+        this.minSimilarity = minSimilarity;
+        //호출한 쪽 트랜잭션 (아직 커밋 안 된 변경) 과 섞이지 않게 따로
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.snapshotTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public List<UsernameMatch> contains(String text) {
+        String query = normalize(text);
+        if (query.isEmpty()) {
+            return new ArrayList<>();
+        }
+        refresh();
+        lock.readLock().lock();
+        try {
+            List<UsernameMatch> matches = new ArrayList<>();
+            if (query.length() < 3) {
+                for (int doc = 0; doc < docCount; doc++) {
+                    addIfContains(matches, doc, query);
+                }
+            } else {
+                for (int doc : intersect(trigrams(query, false))) {
+                    addIfContains(matches, doc, query);
+                }
+            }
+            return ranked(matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<UsernameMatch> fuzzy(String text) {
+        String query = normalize(text);
+        if (query.isEmpty()) {
+            return new ArrayList<>();
+        }
+        refresh();
+        lock.readLock().lock();
+        try {
+            Set<String> grams = trigrams(query, true);
+            Map<Integer, Integer> shared = new HashMap<>();
+            for (String gram : grams) {
+                IntList posting = postings.get(gram);
+                if (posting != null) {
+                    for (int i = 0; i < posting.size; i++) {
+                        shared.merge(posting.values[i], 1, Integer::sum);
+                    }
+                }
+            }
+            List<UsernameMatch> matches = new ArrayList<>();
+            shared.forEach((doc, count) -> {
+                if (usernames[doc] == null) {
+                    return;
+                }
+                double similarity = (double) count / (grams.size() + gramCounts[doc] - count);
+                if (similarity >= minSimilarity) {
+                    matches.add(new UsernameMatch(memberIds[doc], similarity));
+                }
+            });
+            return ranked(matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    @Override
+    public void onReload() {
+        stale = true;
+    }
+
+    //완전 일치 > 앞부분 일치 > 중간 포함, 같은 종류면 username 이 짧을수록 (검색어가 차지하는 비율)
+    private void addIfContains(List<UsernameMatch> matches, int doc, String query) {
+        String username = usernames[doc];
+        if (username == null || !username.contains(query)) {
+            return;
+        }
+        double coverage = (double) query.length() / username.length();
+        double score = username.equals(query) ? 3 : username.startsWith(query) ? 2 + coverage : 1 + coverage;
+        matches.add(new UsernameMatch(memberIds[doc], score));
+    }
+
+    private static List<UsernameMatch> ranked(List<UsernameMatch> matches) {
+        matches.sort(Comparator.comparingDouble(UsernameMatch::getScore).reversed()
+                .thenComparing(UsernameMatch::getMemberId));
+        return matches;
+    }
+
+    //가장 짧은 목록부터 교집합 (목록은 문서 번호 오름차순)
+    private int[] intersect(Set<String> grams) {
+        List<IntList> lists = new ArrayList<>(grams.size());
+        for (String gram : grams) {
+            IntList posting = postings.get(gram);
+            if (posting == null) {
+                return new int[0];
+            }
+            lists.add(posting);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+        int[] result = Arrays.copyOf(lists.get(0).values, lists.get(0).size);
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = intersect(result, lists.get(i));
+        }
+        return result;
+    }
+
+    private static int[] intersect(int[] left, IntList right) {
+        int[] result = new int[Math.min(left.length, right.size)];
+        int size = 0;
+        for (int i = 0, j = 0; i < left.length && j < right.size; ) {
+            if (left[i] == right.values[j]) {
+                result[size++] = left[i];
+                i++;
+                j++;
+            } else if (left[i] < right.values[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private void refresh() {
+        synchronized (refreshMonitor) {
+            if (stale) {
+                rebuild();
+                return;
+            }
+            while (true) {
+                MemberChangeBatch batch = memberChangeFeed.readSince(offset, FEED_BATCH_SIZE);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                lock.writeLock().lock();
+                try {
+                    for (MemberChange change : batch.getChanges()) {
+                        if (change.getType() == MemberChange.Type.DELETE) {
+                            remove(change.getMemberId());
+                        } else {
+                            add(change.getMemberId(), change.getUsername());
+                        }
+                    }
+                    offset = batch.getNextOffset();
+                    if (deletedCount > COMPACT_MIN_DELETED && deletedCount * 2 > docCount) {
+                        compact();
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    //피드의 settled 위치와 member 전체를 같은 시점으로 읽는다
+    //settled 위치 뒤에 이미 보이는 변경은 다시 읽어도 member 별 마지막 값으로 덮어쓰므로 그대로 반영한다
+    private void rebuild() {
+        stale = false;
+        long start = System.currentTimeMillis();
+        try {
+            load();
+        } catch (RuntimeException e) {
+            stale = true;
+            throw e;
+        }
+        log.info("username index built: {} members, {} trigrams in {}ms",
+                docOf.size(), postings.size(), System.currentTimeMillis() - start);
+    }
+
+    private void load() {
+        snapshotTransaction.executeWithoutResult(status -> {
+            MemberChangePosition position = memberChangeFeed.settledPosition();
+            lock.writeLock().lock();
+            try {
+                clear();
+                try (Stream<MemberUsername> rows = em.createQuery(
+                                "select new com.spring.jpadata.dto.MemberUsername(m.id, m.username) from Member m",
+                                MemberUsername.class)
+                        .setHint(org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, 1000)
+                        .getResultStream()) {
+                    rows.forEach(row -> add(row.getId(), row.getUsername()));
+                }
+                offset = position.getOffset();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private void compact() {
+        String[] liveUsernames = Arrays.copyOf(usernames, docCount);
+        long[] liveIds = Arrays.copyOf(memberIds, docCount);
+        int count = docCount;
+        clear();
+        for (int doc = 0; doc < count; doc++) {
+            if (liveUsernames[doc] != null) {
+                add(liveIds[doc], liveUsernames[doc]);
+            }
+        }
+    }
+
+    private void clear() {
+        postings = new HashMap<>();
+        docOf = new HashMap<>();
+        usernames = new String[1024];
+        memberIds = new long[1024];
+        gramCounts = new int[1024];
+        docCount = 0;
+        deletedCount = 0;
+    }
+
+    //write lock 안에서 호출
+    private void add(Long memberId, String username) {
+        Integer existing = docOf.get(memberId);
+        if (existing != null && normalize(username).equals(usernames[existing])) {
+            return; // 나이만 바뀐 UPDATE (bulkAgePlus 등)
+        }
+        remove(memberId);
+        if (username == null) {
+            return;
+        }
+        if (docCount == usernames.length) {
+            usernames = Arrays.copyOf(usernames, docCount * 2);
+            memberIds = Arrays.copyOf(memberIds, docCount * 2);
+            gramCounts = Arrays.copyOf(gramCounts, docCount * 2);
+        }
+        int doc = docCount++;
+        String normalized = normalize(username);
+        Set<String> grams = trigrams(normalized, true);
+        usernames[doc] = normalized;
+        memberIds[doc] = memberId;
+        gramCounts[doc] = grams.size();
+        docOf.put(memberId, doc);
+        for (String gram : grams) {
+            postings.computeIfAbsent(gram, g -> new IntList()).add(doc);
+        }
+    }
+
+    //write lock 안에서 호출
+    private void remove(Long memberId) {
+        Integer doc = docOf.remove(memberId);
+        if (doc != null) {
+            usernames[doc] = null;
+            deletedCount++;
+        }
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    static Set<String> trigrams(String text, boolean padded) {
+        String value = padded ? "  " + text + " " : text;
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= value.length(); i++) {
+            grams.add(value.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    //문서 번호 목록 (추가 순서 = 오름차순)
+    static class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.spring.jpadata.search;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+@Getter @ToString
+@RequiredArgsConstructor
+public class UsernameMatch {
+
+    private final Long memberId;
+    //클수록 관련도가 높다
+    private final double score;
+}
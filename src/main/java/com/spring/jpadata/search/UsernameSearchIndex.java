@@ -0,0 +1,20 @@
+package com.spring.jpadata.search;
+
+import java.util.List;
+
+/**
+ * username 부분 문자열 / 유사 검색 인덱스 (MemberSearchCondition.usernameContains / usernameFuzzy)
+ * 결과는 관련도 내림차순, 같은 점수는 member id 순, 자르지 않고 전부 (다른 조건으로 거른 뒤 getMaxResults 만큼 쓴다)
+ * 구현을 바꾸려면 (ex. H2 Lucene 전문 검색) 이 인터페이스 빈을 교체한다
+ */
+public interface UsernameSearchIndex {
+
+    //대소문자 구분 없이 text 를 포함하는 username
+    List<UsernameMatch> contains(String text);
+
+    //오타 허용: trigram 유사도가 기준 이상인 username
+    List<UsernameMatch> fuzzy(String text);
+
+    //검색 한 번에 돌려줄 최대 건수 (teamName / age 등 나머지 조건으로 거른 뒤에 자른다)
+    int getMaxResults();
+}
@@ -0,0 +1,152 @@
+package com.spring.jpadata.seed;
+
+import com.spring.jpadata.outbox.MemberChangeNotifier;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 합성 team / member 데이터 생성기
+ * 엔티티를 거치지 않고 jdbc batch insert 로 넣는다 (id 는 hibernate_sequence 에서 한번에 구간을 잡는다)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SeedDataGenerator {
+
+    private final SeedDataProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SeedSnapshot seedSnapshot;
+    private final MemberChangeNotifier memberChangeNotifier;
+
+    /**스냅샷이 설정되어 있으면 복원을 먼저 시도하고, 없으면 생성 후 스냅샷을 남긴다*/
+    public void restoreOrGenerate() {
+        String snapshotPath = properties.getSnapshotPath();
+        if (StringUtils.hasText(snapshotPath) && seedSnapshot.restore(snapshotPath)) {
+            return;
+        }
+        generate();
+        if (StringUtils.hasText(snapshotPath)) {
+            seedSnapshot.export(snapshotPath);
+        }
+    }
+
+    public Result generate() {
+        long start = System.currentTimeMillis();
+        int teamCount = properties.getTeamCount();
+        long memberCount = (long) teamCount * properties.getMembersPerTeam();
+
+        long firstId = reserveIds(teamCount + memberCount);
+        long firstMemberId = firstId + teamCount;
+
+        transactionTemplate.executeWithoutResult(status -> insertTeams(firstId, teamCount));
+
+        SplittableRandom random = new SplittableRandom(properties.getSeed());
+        double[] usernameCdf = zipfCdf(properties.getUsernameVocabulary(), properties.getUsernameSkew());
+        long next = 0;
+        while (next < memberCount) {
+            long from = next;
+            long to = Math.min(memberCount, from + properties.getRowsPerTransaction());
+            transactionTemplate.executeWithoutResult(status ->
+                    insertMembers(random, usernameCdf, firstId, firstMemberId, from, to));
+            next = to;
+        }
+
+        Result result = new Result(teamCount, memberCount, firstMemberId, System.currentTimeMillis() - start);
+        memberChangeNotifier.reloaded(); // jdbc 로 바로 넣어서 member_change 가 없다
+        log.info("seed data generated: {}", result);
+        return result;
+    }
+
+    private void insertTeams(long firstTeamId, int teamCount) {
+        List<Object[]> rows = new ArrayList<>(teamCount);
+        for (int i = 0; i < teamCount; i++) {
+            rows.add(new Object[]{firstTeamId + i, "team" + i});
+        }
+        jdbcTemplate.batchUpdate("insert into team(team_id, name) values (?, ?)", rows);
+    }
+
+    private void insertMembers(SplittableRandom random, double[] usernameCdf,
+                               long firstTeamId, long firstMemberId, long from, long to) {
+        int teamCount = properties.getTeamCount();
+        int membersPerTeam = properties.getMembersPerTeam();
+        List<Object[]> rows = new ArrayList<>(properties.getBatchSize());
+        for (long i = from; i < to; i++) {
+            //팀은 순서대로 membersPerTeam 명씩 채운다
+            long teamId = firstTeamId + Math.min(i / membersPerTeam, teamCount - 1);
+            rows.add(new Object[]{firstMemberId + i, "user" + pick(usernameCdf, random.nextDouble()),
+                    skewedAge(random), teamId});
+            if (rows.size() == properties.getBatchSize()) {
+                flush(rows);
+            }
+        }
+        flush(rows);
+    }
+
+    private void flush(List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate("insert into member(member_id, username, age, team_id) values (?, ?, ?, ?)", rows);
+            rows.clear();
+        }
+    }
+
+    private int skewedAge(SplittableRandom random) {
+        int range = properties.getAgeMax() - properties.getAgeMin() + 1;
+        double u = Math.pow(random.nextDouble(), properties.getAgeSkew());
+        return properties.getAgeMin() + Math.min(range - 1, (int) (u * range));
+    }
+
+    /**
+     * 시퀀스에서 count 개의 id 구간 [first, first + count) 을 잡는다
+     * 증가폭을 count 로 바꾸고 next value 한 번 -> 구간 예약이 next value 하나로 끝나서
+     * 그 사이 다른 세션의 hibernate insert 는 구간 앞이나 뒤 값을 받는다 (select 후 restart 는 그 사이에 겹칠 수 있다)
+     * 증가폭을 되돌리기 전에 다른 세션이 next value 를 부르면 그쪽도 count 만큼 건너뛸 뿐 겹치지는 않는다
+     * 같은 프로세스 안에서 두 생성이 증가폭을 동시에 바꾸지 않도록 synchronized
+     */
+    private synchronized long reserveIds(long count) {
+        jdbcTemplate.execute("alter sequence hibernate_sequence increment by " + count);
+        try {
+            return jdbcTemplate.queryForObject("select next value for hibernate_sequence", Long.class);
+        } finally {
+            jdbcTemplate.execute("alter sequence hibernate_sequence increment by 1");
+        }
+    }
+
+    static double[] zipfCdf(int size, double exponent) {
+        double[] cdf = new double[size];
+        double sum = 0;
+        for (int k = 0; k < size; k++) {
+            sum += 1.0 / Math.pow(k + 1, exponent);
+            cdf[k] = sum;
+        }
+        for (int k = 0; k < size; k++) {
+            cdf[k] /= sum;
+        }
+        return cdf;
+    }
+
+    static int pick(double[] cdf, double u) {
+        int index = Arrays.binarySearch(cdf, u);
+        return index >= 0 ? index : Math.min(-index - 1, cdf.length - 1);
+    }
+
+    @Getter @ToString
+    @RequiredArgsConstructor
+    public static class Result {
+        private final int teams;
+        private final long members;
+        private final long firstMemberId;
+        private final long elapsedMillis;
+    }
+}
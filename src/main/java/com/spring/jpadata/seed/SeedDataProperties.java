@@ -0,0 +1,35 @@
+package com.spring.jpadata.seed;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 부하 테스트용 합성 데이터 설정 (jpadata.seed.*)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "jpadata.seed")
+public class SeedDataProperties {
+
+    private int teamCount = 10;
+    private int membersPerTeam = 1000;
+    //같은 seed 면 항상 같은 데이터가 만들어진다
+    private long seed = 42L;
+
+    private int ageMin = 10;
+    private int ageMax = 80;
+    //1 이면 균등, 클수록 어린 나이 쪽으로 몰린다
+    private double ageSkew = 2.0;
+
+    //username 후보 개수와 zipf 지수 (클수록 소수의 이름이 많이 반복된다)
+    private int usernameVocabulary = 10_000;
+    private double usernameSkew = 1.1;
+
+    private int batchSize = 1000;
+    //이 행 수마다 커밋
+    private int rowsPerTransaction = 50_000;
+
+    //비어있지 않으면 생성 대신 스냅샷 복원을 먼저 시도하고, 생성했다면 스냅샷을 남긴다 (H2 서버 기준 경로)
+    private String snapshotPath;
+}
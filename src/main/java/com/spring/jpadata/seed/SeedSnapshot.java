@@ -0,0 +1,51 @@
+package com.spring.jpadata.seed;
+
+import com.spring.jpadata.outbox.MemberChangeNotifier;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 시드 데이터 스냅샷 (H2 SCRIPT / RUNSCRIPT)
+ * tcp 접속이면 파일 경로는 H2 서버 기준이다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SeedSnapshot {
+
+    private static final String TABLES = "member, team";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MemberChangeNotifier memberChangeNotifier;
+
+    //drop + create + insert 가 모두 들어간 스크립트를 만든다
+    public void export(String path) {
+        jdbcTemplate.execute("script drop to " + literal(path) + " compression zip table " + TABLES);
+        log.info("seed snapshot exported to {}", path);
+    }
+
+    //스냅샷이 없거나 읽을 수 없으면 false
+    public boolean restore(String path) {
+        try {
+            jdbcTemplate.execute("runscript from " + literal(path) + " compression zip");
+        } catch (DataAccessException e) {
+            log.warn("seed snapshot restore skipped ({}): {}", path, e.getMostSpecificCause().getMessage());
+            return false;
+        }
+        //스냅샷에는 시퀀스가 없으므로 이미 쓰인 id 다음부터 발급되도록 맞춘다
+        Long maxId = jdbcTemplate.queryForObject(
+                "select greatest((select coalesce(max(member_id), 0) from member)," +
+                        " (select coalesce(max(team_id), 0) from team))", Long.class);
+        jdbcTemplate.execute("alter sequence hibernate_sequence restart with " + (maxId + 1));
+        memberChangeNotifier.reloaded();
+        log.info("seed snapshot restored from {}", path);
+        return true;
+    }
+
+    private static String literal(String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
+}
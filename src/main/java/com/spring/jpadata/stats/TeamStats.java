@@ -0,0 +1,98 @@
+package com.spring.jpadata.stats;
+
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 팀 하나의 나이 분포 (나이 -> 회원 수)
+ * 나이별 개수를 그대로 들고 있어서 빼기도 가능하고 count/sum/min/max/히스토그램을 모두 여기서 만든다
+ */
+@EqualsAndHashCode
+@ToString
+class TeamStats {
+
+    private final TreeMap<Integer, Long> ages = new TreeMap<>();
+    private long nullAgeCount;
+
+    void add(Integer age, long count) {
+        if (age == null) {
+            nullAgeCount += count;
+        } else {
+            ages.merge(age, count, Long::sum);
+        }
+    }
+
+    //없는 값을 빼려고 하면 false -> 요약이 어긋났다는 뜻
+    boolean remove(Integer age) {
+        if (age == null) {
+            if (nullAgeCount == 0) {
+                return false;
+            }
+            nullAgeCount--;
+            return true;
+        }
+        Long count = ages.get(age);
+        if (count == null) {
+            return false;
+        }
+        if (count == 1) {
+            ages.remove(age);
+        } else {
+            ages.put(age, count - 1);
+        }
+        return true;
+    }
+
+    TeamStats copy() {
+        TeamStats copy = new TeamStats();
+        copy.ages.putAll(ages);
+        copy.nullAgeCount = nullAgeCount;
+        return copy;
+    }
+
+    boolean isEmpty() {
+        return ages.isEmpty() && nullAgeCount == 0;
+    }
+
+    long memberCount() {
+        long count = nullAgeCount;
+        for (long c : ages.values()) {
+            count += c;
+        }
+        return count;
+    }
+
+    long ageSum() {
+        long sum = 0;
+        for (Map.Entry<Integer, Long> entry : ages.entrySet()) {
+            sum += (long) entry.getKey() * entry.getValue();
+        }
+        return sum;
+    }
+
+    Double ageAvg() {
+        long withAge = memberCount() - nullAgeCount;
+        return withAge == 0 ? null : (double) ageSum() / withAge;
+    }
+
+    Integer ageMin() {
+        return ages.isEmpty() ? null : ages.firstKey();
+    }
+
+    Integer ageMax() {
+        return ages.isEmpty() ? null : ages.lastKey();
+    }
+
+    Map<Integer, Long> histogram(int bucketWidth) {
+        Map<Integer, Long> histogram = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Long> entry : ages.entrySet()) {
+            int bucket = Math.floorDiv(entry.getKey(), bucketWidth) * bucketWidth;
+            histogram.merge(bucket, entry.getValue(), Long::sum);
+        }
+        return histogram;
+    }
+}
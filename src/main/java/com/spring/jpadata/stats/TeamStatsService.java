@@ -0,0 +1,230 @@
+package com.spring.jpadata.stats;
+
+import com.spring.jpadata.dto.TeamAgeCount;
+import com.spring.jpadata.dto.TeamStatsDto;
+import com.spring.jpadata.entity.MemberChange;
+import com.spring.jpadata.entity.Team;
+import com.spring.jpadata.outbox.MemberChangeBatch;
+import com.spring.jpadata.outbox.MemberChangeFeed;
+import com.spring.jpadata.outbox.MemberChangeListener;
+import com.spring.jpadata.outbox.MemberChangePosition;
+import com.spring.jpadata.repository.jpadata.MemberRepository;
+import com.spring.jpadata.repository.jpadata.TeamRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 팀별 회원 수 / 나이 합계·평균·최소·최대 / 나이 히스토그램
+ * 매번 member 를 group by 하지 않고 member_change 피드를 따라가면서 요약을 고친다 (조회할 때 밀린 변경만 반영)
+ * - INSERT: 새 팀/나이 추가, DELETE: 빼기, UPDATE(changeTeam, 나이 변경, bulkAgePlus): 이전 값 빼고 새 값 추가
+ * - 처음 조회할 때, 또는 요약이 어긋난 게 보이면 (없는 값을 빼려고 할 때, 이전 값을 모르는 UPDATE) 전체 재계산
+ * - 전체 재계산은 피드의 settledPosition 부터 이어 읽는다 (그 뒤에 이미 반영된 기록은 건너뛴다)
+ * - verify() 는 전체 재계산 결과와 비교해서 다르면 교체한다 (피드를 타지 않는 쓰기 경로 대비)
+ * - 시드 데이터처럼 피드 없이 통째로 넣은 경우(onReload)는 다음 조회 때 전체 재계산
+ */
+@Slf4j
+@Component
+public class TeamStatsService implements MeterBinder, MemberChangeListener {
+
+    private static final int FEED_BATCH_SIZE = 1000;
+
+    private final MemberRepository memberRepository;
+    private final TeamRepository teamRepository;
+    private final MemberChangeFeed memberChangeFeed;
+    private final TransactionTemplate snapshotTransaction;
+    private final int bucketWidth;
+
+    private Map<Long, TeamStats> stats = new HashMap<>();
+    private long offset;
+    //offset 뒤에 있지만 마지막 스냅샷에 이미 들어 있는 change id
+    private Set<Long> alreadyApplied = new HashSet<>();
+    private boolean stale = true;
+    private final AtomicLong mismatches = new AtomicLong();
+
+    public TeamStatsService(MemberRepository memberRepository, TeamRepository teamRepository,
+                            MemberChangeFeed memberChangeFeed,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${jpadata.team-stats.histogram-bucket-width:10}") int bucketWidth) {
+        this.memberRepository = memberRepository;
+        this.teamRepository = teamRepository;
+        this.memberChangeFeed = memberChangeFeed;
+        this.bucketWidth = bucketWidth;
+        //피드 위치와 group by 결과가 같은 시점이어야 한다, 호출한 쪽 트랜잭션의 커밋 안 된 변경은 보지 않는다
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.snapshotTransaction.setReadOnly(true);
+    }
+
+    public synchronized List<TeamStatsDto> getStats() {
+        refresh();
+        Map<Long, String> teamNames = teamRepository.findAllById(stats.keySet()).stream()
+                .collect(Collectors.toMap(Team::getId, Team::getName));
+
+        List<TeamStatsDto> result = new ArrayList<>();
+        stats.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> {
+                    TeamStats s = entry.getValue();
+                    result.add(new TeamStatsDto(entry.getKey(), teamNames.get(entry.getKey()),
+                            s.memberCount(), s.ageSum(), s.ageAvg(), s.ageMin(), s.ageMax(),
+                            s.histogram(bucketWidth)));
+                });
+        return result;
+    }
+
+    /**
+     * 전체 재계산 결과와 지금 요약을 비교한다, 다르면 재계산 결과로 바꾸고 false
+     */
+    public synchronized boolean verify() {
+        refresh();
+        Snapshot snapshot = snapshot();
+        //같은 offset 까지 따라간 다음, 스냅샷에만 먼저 들어간 기록 (applied) 을 복사본에 더해서 비교
+        catchUp(snapshot.position.getOffset());
+        boolean consistent = !stale && offset == snapshot.position.getOffset();
+        if (consistent) {
+            Map<Long, TeamStats> expected = copy(stats);
+            for (MemberChange change : snapshot.position.getApplied()) {
+                consistent &= applyChange(expected, change);
+            }
+            consistent &= expected.equals(snapshot.stats);
+        }
+        if (!consistent) {
+            mismatches.incrementAndGet();
+            log.warn("team stats mismatch at offset {} -> replaced by full recompute", snapshot.position.getOffset());
+            apply(snapshot);
+        }
+        return consistent;
+    }
+
+    @Override
+    public synchronized void onReload() {
+        stale = true;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("jpadata.team-stats.mismatches", mismatches, AtomicLong::get).register(registry);
+    }
+
+    private void refresh() {
+        if (stale) {
+            apply(snapshot());
+            return;
+        }
+        catchUp(Long.MAX_VALUE);
+        if (stale) {
+            log.info("team stats drifted at offset {} -> full recompute", offset);
+            apply(snapshot());
+        }
+    }
+
+    private void catchUp(long until) {
+        while (!stale && offset < until) {
+            MemberChangeBatch batch = memberChangeFeed.readSince(offset, FEED_BATCH_SIZE);
+            if (batch.isEmpty()) {
+                return;
+            }
+            for (MemberChange change : batch.getChanges()) {
+                if (change.getId() > until) {
+                    return;
+                }
+                if (!alreadyApplied.remove(change.getId()) && !applyChange(stats, change)) {
+                    stale = true;
+                }
+                offset = change.getId();
+            }
+        }
+    }
+
+    //요약이 어긋난 게 보이면 false (없는 값 빼기, 이전 값을 모르는 UPDATE)
+    private static boolean applyChange(Map<Long, TeamStats> target, MemberChange change) {
+        switch (change.getType()) {
+            case INSERT:
+                add(target, change.getTeamId(), change.getAge());
+                return true;
+            case UPDATE:
+                if (change.isOldStateUnknown()) {
+                    return false;
+                }
+                boolean removed = remove(target, change.getOldTeamId(), change.getOldAge());
+                add(target, change.getTeamId(), change.getAge());
+                return removed;
+            case DELETE:
+                return remove(target, change.getTeamId(), change.getAge());
+            default:
+                return true;
+        }
+    }
+
+    private static void add(Map<Long, TeamStats> target, Long teamId, Integer age) {
+        if (teamId != null) {
+            target.computeIfAbsent(teamId, id -> new TeamStats()).add(age, 1);
+        }
+    }
+
+    //teamId 가 null 이면 팀이 없던 member -> 뺄 것이 없다
+    private static boolean remove(Map<Long, TeamStats> target, Long teamId, Integer age) {
+        if (teamId == null) {
+            return true;
+        }
+        TeamStats teamStats = target.get(teamId);
+        if (teamStats == null || !teamStats.remove(age)) {
+            return false;
+        }
+        if (teamStats.isEmpty()) {
+            target.remove(teamId);
+        }
+        return true;
+    }
+
+    private static Map<Long, TeamStats> copy(Map<Long, TeamStats> source) {
+        Map<Long, TeamStats> copy = new HashMap<>();
+        source.forEach((teamId, teamStats) -> copy.put(teamId, teamStats.copy()));
+        return copy;
+    }
+
+    private Snapshot snapshot() {
+        return snapshotTransaction.execute(status -> {
+            MemberChangePosition position = memberChangeFeed.settledPosition();
+            Map<Long, TeamStats> recomputed = new HashMap<>();
+            for (TeamAgeCount row : memberRepository.countByTeamAndAge()) {
+                recomputed.computeIfAbsent(row.getTeamId(), id -> new TeamStats()).add(row.getAge(), row.getCount());
+            }
+            return new Snapshot(position, recomputed);
+        });
+    }
+
+    private void apply(Snapshot snapshot) {
+        stats = snapshot.stats;
+        offset = snapshot.position.getOffset();
+        alreadyApplied = snapshot.position.appliedIds();
+        stale = false;
+    }
+
+    private static class Snapshot {
+        final MemberChangePosition position;
+        final Map<Long, TeamStats> stats;
+
+        Snapshot(MemberChangePosition position, Map<Long, TeamStats> stats) {
+            this.position = position;
+            this.stats = stats;
+        }
+    }
+}
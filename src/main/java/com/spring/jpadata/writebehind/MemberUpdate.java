@@ -0,0 +1,25 @@
+package com.spring.jpadata.writebehind;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * member 한 명에 대한 부분 변경 (null 인 필드는 그대로 둔다)
+ */
+@Getter @ToString
+@RequiredArgsConstructor
+public class MemberUpdate {
+
+    private final Long memberId;
+    private final String username;
+    private final Integer age;
+
+    public static MemberUpdate age(Long memberId, int age) {
+        return new MemberUpdate(memberId, null, age);
+    }
+
+    public static MemberUpdate username(Long memberId, String username) {
+        return new MemberUpdate(memberId, username, null);
+    }
+}
@@ -0,0 +1,276 @@
+package com.spring.jpadata.writebehind;
+
+import com.spring.jpadata.entity.Member;
+import com.spring.jpadata.repository.jpadata.MemberRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityNotFoundException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 잦은 age/username 변경을 모아서 한 트랜잭션으로 반영하는 write-behind 버퍼 (jpadata.write-behind.enabled=true 일 때만)
+ * - 같은 member id 의 변경은 버퍼 안에서 합쳐진다 (마지막 값이 이긴다)
+ * - flushSize 만큼 쌓이거나 flushIntervalMs 가 지나면 백그라운드 스레드가 한 번에 flush
+ * - submit 이 돌려주는 future 는 그 변경이 커밋된 뒤에 완료된다 (실패하면 예외로 완료)
+ * - 버퍼가 capacity 만큼 차면 submit 이 offerTimeoutMs 까지 기다리고, 그래도 안 되면 거절한다
+ * flush 는 엔티티를 읽어서 고치는 방식이라 dirty checking -> jdbc batch update, member_change 기록도 그대로 남는다
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "jpadata.write-behind", name = "enabled", havingValue = "true")
+public class MemberWriteBehindBuffer implements MeterBinder {
+
+    //findAllById 한 번에 넘기는 id 수
+    private static final int LOAD_CHUNK_SIZE = 1000;
+
+    private final WriteBehindProperties properties;
+    private final MemberRepository memberRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition flushNeeded = lock.newCondition();
+    private LinkedHashMap<Long, Pending> pending = new LinkedHashMap<>();
+    private long firstPendingNanos;
+
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile int pendingSize;
+    private volatile Timer flushTimer;
+    private volatile DistributionSummary batchSize;
+
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    public MemberWriteBehindBuffer(WriteBehindProperties properties, MemberRepository memberRepository,
+                                   PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.memberRepository = memberRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.flusher = new Thread(this::flushLoop, "member-write-behind");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    public CompletableFuture<Void> submit(MemberUpdate update) {
+        lock.lock();
+        try {
+            if (!running) {
+                throw new RejectedExecutionException("write-behind buffer is shut down");
+            }
+            Pending target = pending.get(update.getMemberId());
+            if (target == null) {
+                awaitCapacity(update);
+                target = pending.computeIfAbsent(update.getMemberId(), id -> new Pending());
+            } else {
+                coalesced.incrementAndGet();
+            }
+            boolean first = pending.size() == 1 && target.isEmpty();
+            if (first) {
+                firstPendingNanos = System.nanoTime();
+            }
+            target.merge(update);
+            pendingSize = pending.size();
+            //첫 변경이면 flusher 가 interval 타이머를 시작하도록 깨운다
+            if (first || pending.size() >= properties.getFlushSize()) {
+                flushNeeded.signal();
+            }
+            return target.future;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getPendingSize() {
+        return pendingSize;
+    }
+
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("jpadata.write-behind.pending", this, MemberWriteBehindBuffer::getPendingSize).register(registry);
+        Gauge.builder("jpadata.write-behind.coalesced", coalesced, AtomicLong::get).register(registry);
+        Gauge.builder("jpadata.write-behind.rejected", rejected, AtomicLong::get).register(registry);
+        batchSize = DistributionSummary.builder("jpadata.write-behind.batch.size").register(registry);
+        flushTimer = Timer.builder("jpadata.write-behind.flush")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        lock.lock();
+        try {
+            running = false;
+            flushNeeded.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        //남은 변경은 flusher 가 마저 반영하고 끝난다
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    //lock 을 잡은 상태에서 호출
+    private void awaitCapacity(MemberUpdate update) {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(properties.getOfferTimeoutMs());
+        try {
+            while (pending.size() >= properties.getCapacity() && running) {
+                if (remaining <= 0) {
+                    rejected.incrementAndGet();
+                    throw new RejectedExecutionException("write-behind buffer full: member_id=" + update.getMemberId());
+                }
+                flushNeeded.signal();
+                remaining = notFull.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejected.incrementAndGet();
+            throw new RejectedExecutionException("interrupted while waiting for write-behind buffer", e);
+        }
+        if (!running) {
+            throw new RejectedExecutionException("write-behind buffer is shut down");
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            Map<Long, Pending> batch;
+            try {
+                batch = takeBatch();
+            } catch (InterruptedException e) {
+                running = false;
+                continue;
+            }
+            if (batch == null) {
+                return;
+            }
+            flush(batch);
+        }
+    }
+
+    //flush 조건이 될 때까지 기다렸다가 버퍼를 통째로 가져간다, 종료 후 비어 있으면 null
+    private Map<Long, Pending> takeBatch() throws InterruptedException {
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(properties.getFlushIntervalMs());
+        lock.lock();
+        try {
+            while (running) {
+                if (pending.isEmpty()) {
+                    flushNeeded.await();
+                    continue;
+                }
+                long waited = System.nanoTime() - firstPendingNanos;
+                if (pending.size() >= properties.getFlushSize() || waited >= intervalNanos) {
+                    break;
+                }
+                flushNeeded.awaitNanos(intervalNanos - waited);
+            }
+            if (pending.isEmpty()) {
+                return null;
+            }
+            LinkedHashMap<Long, Pending> batch = pending;
+            pending = new LinkedHashMap<>();
+            pendingSize = 0;
+            notFull.signalAll();
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flush(Map<Long, Pending> batch) {
+        long start = System.nanoTime();
+        Set<Long> missing = new HashSet<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Long> ids = new ArrayList<>(batch.keySet());
+                Set<Long> found = new HashSet<>();
+                for (int from = 0; from < ids.size(); from += LOAD_CHUNK_SIZE) {
+                    List<Long> chunk = ids.subList(from, Math.min(from + LOAD_CHUNK_SIZE, ids.size()));
+                    for (Member member : memberRepository.findAllById(chunk)) {
+                        batch.get(member.getId()).applyTo(member);
+                        found.add(member.getId());
+                    }
+                }
+                for (Long id : ids) {
+                    if (!found.contains(id)) {
+                        missing.add(id);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("write-behind flush failed: {} members", batch.size(), e);
+            batch.values().forEach(p -> p.future.completeExceptionally(e));
+            return;
+        } finally {
+            record(batch.size(), System.nanoTime() - start);
+        }
+        batch.forEach((id, p) -> {
+            if (missing.contains(id)) {
+                p.future.completeExceptionally(new EntityNotFoundException("member not found: " + id));
+            } else {
+                p.future.complete(null);
+            }
+        });
+    }
+
+    private void record(int size, long elapsedNanos) {
+        if (flushTimer != null) {
+            flushTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            batchSize.record(size);
+        }
+    }
+
+    /**합쳐진 변경 + 이 변경을 기다리는 모든 호출자가 공유하는 future*/
+    static class Pending {
+        String username;
+        Integer age;
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        boolean isEmpty() {
+            return username == null && age == null;
+        }
+
+        void merge(MemberUpdate update) {
+            if (update.getUsername() != null) {
+                username = update.getUsername();
+            }
+            if (update.getAge() != null) {
+                age = update.getAge();
+            }
+        }
+
+        void applyTo(Member member) {
+            if (username != null) {
+                member.setUsername(username);
+            }
+            if (age != null) {
+                member.setAge(age);
+            }
+        }
+    }
+}
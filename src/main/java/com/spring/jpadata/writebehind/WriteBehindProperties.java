@@ -0,0 +1,24 @@
+package com.spring.jpadata.writebehind;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * write-behind 버퍼 설정 (jpadata.write-behind.*)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "jpadata.write-behind")
+public class WriteBehindProperties {
+
+    private boolean enabled = false;
+    //버퍼에 쌓일 수 있는 member id 개수 (같은 id 는 합쳐지므로 한 칸), 차면 submit 이 기다린다
+    private int capacity = 10_000;
+    //이만큼 쌓이면 바로 flush
+    private int flushSize = 500;
+    //첫 변경이 들어오고 이 시간이 지나면 flushSize 가 안 돼도 flush
+    private long flushIntervalMs = 50;
+    //버퍼가 찼을 때 submit 이 기다리는 최대 시간, 넘으면 RejectedExecutionException
+    private long offerTimeoutMs = 1000;
+}
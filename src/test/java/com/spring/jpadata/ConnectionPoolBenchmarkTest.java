@@ -0,0 +1,206 @@
+package com.spring.jpadata;
+
+import com.spring.jpadata.dto.MemberSearchCondition;
+import com.spring.jpadata.repository.jpadata.MemberRepository;
+import com.spring.jpadata.seed.SeedDataGenerator;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 커넥션 풀 크기별로 member 검색 부하(/v1 ~ /v3 와 같은 조회)를 걸어서 처리량이 가장 좋은 풀 크기를 찾는다
+ * ./gradlew benchmark 로 실행 (기본 test 에서는 제외)
+ * -Dpool.sizes=2,4,8,16,32 -Dpool.clients=64 -Dpool.seconds=5 로 조절
+ * 처리량이 최고치의 95% 안에 드는 크기 중 가장 작은 값을 추천한다 (풀이 크면 DB 쪽 경합만 늘어난다)
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "jpadata.seed.team-count=20",
+        "jpadata.seed.members-per-team=500",
+        "jpadata.sql-log.enabled=false",
+        "jpadata.diagnostics.slow-query.enabled=false"})
+class ConnectionPoolBenchmarkTest {
+
+    static final int[] POOL_SIZES = Arrays.stream(System.getProperty("pool.sizes", "2,4,8,16,32").split(","))
+            .mapToInt(Integer::parseInt).toArray();
+    static final int CLIENTS = Integer.getInteger("pool.clients", Runtime.getRuntime().availableProcessors() * 8);
+    static final int SECONDS = Integer.getInteger("pool.seconds", 5);
+
+    @Autowired
+    SeedDataGenerator seedDataGenerator;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    DataSource dataSource;
+    @Autowired
+    MeterRegistry meterRegistry;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    @DisplayName("풀 크기별 member 검색 처리량 / 지연 / 커넥션 대기")
+    void findOptimalPoolSize() throws Exception {
+        seedDataGenerator.generate();
+        HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        System.out.printf("clients=%d, %ds per pool size, cores=%d%n",
+                CLIENTS, SECONDS, Runtime.getRuntime().availableProcessors());
+        System.out.println("pool  req/s     p50(ms)  p99(ms)  acquire-avg(ms)  acquire-max(ms)  errors");
+
+        List<Result> results = new ArrayList<>();
+        for (int poolSize : POOL_SIZES) {
+            resize(hikari, poolSize);
+            run(readOnly, 1); // 워밍업
+            Timer acquire = meterRegistry.get("hikaricp.connections.acquire").tag("pool", hikari.getPoolName()).timer();
+            long acquireCount = acquire.count();
+            double acquireTotal = acquire.totalTime(TimeUnit.MILLISECONDS);
+
+            Result result = run(readOnly, SECONDS);
+            result.poolSize = poolSize;
+            long acquired = acquire.count() - acquireCount;
+            result.acquireAvgMillis = acquired == 0 ? 0 : (acquire.totalTime(TimeUnit.MILLISECONDS) - acquireTotal) / acquired;
+            result.acquireMaxMillis = acquire.max(TimeUnit.MILLISECONDS);
+            results.add(result);
+            System.out.printf("%4d  %8.0f  %7.2f  %7.2f  %15.2f  %15.2f  %6d%n",
+                    poolSize, result.throughput, result.p50Millis, result.p99Millis,
+                    result.acquireAvgMillis, result.acquireMaxMillis, result.errors);
+        }
+
+        double best = results.stream().mapToDouble(r -> r.throughput).max().orElse(0);
+        Result optimal = results.stream()
+                .filter(r -> r.throughput >= best * 0.95)
+                .findFirst()
+                .orElseThrow(IllegalStateException::new);
+        System.out.printf("optimal maximum-pool-size=%d (%.0f req/s)%n", optimal.poolSize, optimal.throughput);
+
+        assertThat(results).allSatisfy(r -> assertThat(r.errors).isZero());
+        assertThat(meterRegistry.find("jpadata.pool.saturation").gauge()).isNotNull();
+    }
+
+    private void resize(HikariDataSource hikari, int poolSize) throws InterruptedException {
+        //줄일 때는 최소 idle 을 먼저, 늘릴 때는 최대를 먼저 바꾼다
+        if (poolSize < hikari.getMaximumPoolSize()) {
+            hikari.getHikariConfigMXBean().setMinimumIdle(poolSize);
+            hikari.getHikariConfigMXBean().setMaximumPoolSize(poolSize);
+        } else {
+            hikari.getHikariConfigMXBean().setMaximumPoolSize(poolSize);
+            hikari.getHikariConfigMXBean().setMinimumIdle(poolSize);
+        }
+        hikari.getHikariPoolMXBean().softEvictConnections();
+        Thread.sleep(500);
+    }
+
+    //CLIENTS 개 스레드가 쉬지 않고 요청 하나(= 읽기 트랜잭션 하나, 커넥션 하나)씩 보낸다
+    private Result run(TransactionTemplate readOnly, int seconds) throws InterruptedException {
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Samples> latencies = new ArrayList<>();
+        AtomicLong errors = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(CLIENTS);
+
+        for (int c = 0; c < CLIENTS; c++) {
+            Samples samples = new Samples();
+            SplittableRandom random = new SplittableRandom(c);
+            latencies.add(samples);
+            clients.execute(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            readOnly.executeWithoutResult(status -> request(random));
+                        } catch (RuntimeException e) {
+                            errors.incrementAndGet();
+                        }
+                        samples.add(System.nanoTime() - start);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        clients.shutdown();
+
+        long[] all = latencies.stream()
+                .flatMapToLong(samples -> Arrays.stream(samples.values, 0, samples.size))
+                .sorted()
+                .toArray();
+        Result result = new Result();
+        result.throughput = (double) all.length / seconds;
+        result.p50Millis = percentile(all, 0.50);
+        result.p99Millis = percentile(all, 0.99);
+        result.errors = errors.get();
+        return result;
+    }
+
+    //v1 / v2 / v3 를 섞어서
+    private void request(SplittableRandom random) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("team" + random.nextInt(20));
+        condition.setAgeGoe(random.nextInt(60));
+        condition.setAgeLoe(condition.getAgeGoe() + 10);
+        switch (random.nextInt(3)) {
+            case 0:
+                memberRepository.search(condition);
+                break;
+            case 1:
+                memberRepository.searchPageSimple(condition, PageRequest.of(0, 20));
+                break;
+            default:
+                memberRepository.searchPageComplex(condition, PageRequest.of(random.nextInt(5), 20));
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.floor(sorted.length * p))] / 1_000_000.0;
+    }
+
+    //클라이언트 스레드 하나의 요청 지연 (done.await() 뒤에만 읽는다)
+    static class Samples {
+        long[] values = new long[4096];
+        int size;
+
+        void add(long nanos) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = nanos;
+        }
+    }
+
+    static class Result {
+        int poolSize;
+        double throughput;
+        double p50Millis;
+        double p99Millis;
+        double acquireAvgMillis;
+        double acquireMaxMillis;
+        long errors;
+    }
+}
@@ -0,0 +1,97 @@
+package com.spring.jpadata;
+
+import com.spring.jpadata.dto.MemberSearchCondition;
+import com.spring.jpadata.entity.Member;
+import com.spring.jpadata.entity.Team;
+import com.spring.jpadata.repository.jpadata.MemberRepository;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 쿼리 플랜 캐시 cold / warm 비교 벤치마크
+ * ./gradlew benchmark 로 실행 (기본 test 에서는 제외)
+ */
+@Tag("benchmark")
+@SpringBootTest
+@Transactional
+class QueryCacheBenchmarkTest {
+
+    static final int WARM_ITERATIONS = 200;
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    EntityManagerFactory emf;
+    @Autowired
+    MemberRepository memberRepository;
+
+    SessionFactoryImplementor sessionFactory;
+    Statistics statistics;
+
+    @BeforeEach
+    void before() {
+        sessionFactory = emf.unwrap(SessionFactoryImplementor.class);
+        statistics = sessionFactory.getStatistics();
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 0; i < 100; i++) {
+            em.persist(new Member("member" + i, i, teamA));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    @DisplayName("@Query 메소드 cold/warm")
+    void queryMethod() {
+        measure("findUser", () -> memberRepository.findUser("member1", 1));
+        measure("findMemberDto", () -> memberRepository.findMemberDto());
+    }
+
+    @Test
+    @DisplayName("QueryDsl 검색 cold/warm")
+    void querydslSearch() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(10);
+        condition.setAgeLoe(20);
+        measure("search", () -> memberRepository.search(condition));
+    }
+
+    private void measure(String name, Runnable query) {
+        sessionFactory.getQueryPlanCache().cleanup(); // 플랜 캐시 비우기 -> cold
+        statistics.clear();
+
+        long coldStart = System.nanoTime();
+        query.run();
+        long coldNanos = System.nanoTime() - coldStart;
+        long coldMiss = statistics.getQueryPlanCacheMissCount();
+
+        long warmStart = System.nanoTime();
+        for (int i = 0; i < WARM_ITERATIONS; i++) {
+            query.run();
+        }
+        long warmNanos = (System.nanoTime() - warmStart) / WARM_ITERATIONS;
+
+        System.out.printf("[%s] cold=%dus warm(avg)=%dus planCache hit=%d miss=%d prepared=%d%n",
+                name, coldNanos / 1000, warmNanos / 1000,
+                statistics.getQueryPlanCacheHitCount(), statistics.getQueryPlanCacheMissCount(),
+                statistics.getPrepareStatementCount());
+
+        assertThat(coldMiss).isGreaterThan(0);
+        assertThat(statistics.getQueryPlanCacheMissCount()).isEqualTo(coldMiss); // warm 구간은 전부 hit
+        assertThat(statistics.getQueryPlanCacheHitCount()).isGreaterThanOrEqualTo(WARM_ITERATIONS);
+    }
+}
@@ -0,0 +1,117 @@
+package com.spring.jpadata.analytics;
+
+import com.spring.jpadata.dto.MemberTeamDto;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 박싱 / 순차 primitive / 병렬 primitive 집계 비교 (JMH)
+ * ./gradlew benchmark 로 실행 (기본 test 에서는 제외)
+ * -Djmh.sizes=1000,100000,1000000 -Djmh.forks=1 -Djmh.iterations=5 로 조절
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MemberAnalyticsBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    List<MemberTeamDto> members;
+    MemberAnalytics sequential;
+    MemberAnalytics parallel;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        members = MemberAnalyticsTest.members(size, 42);
+        sequential = new MemberAnalytics(1, Integer.MAX_VALUE);
+        parallel = new MemberAnalytics(0, 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sequential.shutdown();
+        parallel.shutdown();
+    }
+
+    @Benchmark
+    public Integer ageSumBoxed() {
+        return members.stream().map(MemberTeamDto::getAge).reduce(0, Integer::sum);
+    }
+
+    @Benchmark
+    public long ageSumSequential() {
+        return sequential.ageSum(members);
+    }
+
+    @Benchmark
+    public long ageSumParallel() {
+        return parallel.ageSum(members);
+    }
+
+    @Benchmark
+    public Map<Long, Long> byTeamBoxed() {
+        return members.stream().filter(m -> m.getTeamId() != null)
+                .collect(Collectors.groupingBy(MemberTeamDto::getTeamId, Collectors.counting()));
+    }
+
+    @Benchmark
+    public TeamAgeTotals byTeamSequential() {
+        return sequential.byTeam(members);
+    }
+
+    @Benchmark
+    public TeamAgeTotals byTeamParallel() {
+        return parallel.byTeam(members);
+    }
+
+    @Benchmark
+    public Map<Integer, Long> ageBandsBoxed() {
+        return members.stream().collect(Collectors.groupingBy(m -> m.getAge() / 10 * 10, Collectors.counting()));
+    }
+
+    @Benchmark
+    public AgeBandHistogram ageBandsSequential() {
+        return sequential.ageBands(members, 10);
+    }
+
+    @Benchmark
+    public AgeBandHistogram ageBandsParallel() {
+        return parallel.ageBands(members, 10);
+    }
+
+    @Test
+    void run() throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(MemberAnalyticsBenchmark.class.getName() + "\\.")
+                .param("size", System.getProperty("jmh.sizes", "1000,100000,1000000").split(","))
+                .forks(Integer.getInteger("jmh.forks", 1))
+                .warmupIterations(Integer.getInteger("jmh.iterations", 5))
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(Integer.getInteger("jmh.iterations", 5))
+                .measurementTime(TimeValue.seconds(1))
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,93 @@
+package com.spring.jpadata.analytics;
+
+import com.spring.jpadata.dto.MemberTeamDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.IntSummaryStatistics;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberAnalyticsTest {
+
+    //threshold 0 -> 항상 병렬, Integer.MAX_VALUE -> 항상 순차
+    MemberAnalytics parallel = new MemberAnalytics(4, 0);
+    MemberAnalytics sequential = new MemberAnalytics(1, Integer.MAX_VALUE);
+
+    @AfterEach
+    void after() {
+        parallel.shutdown();
+        sequential.shutdown();
+    }
+
+    static List<MemberTeamDto> members(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<MemberTeamDto> members = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            //10% 는 팀 없음
+            Long teamId = random.nextInt(10) == 0 ? null : (long) random.nextInt(1, 200);
+            members.add(new MemberTeamDto((long) i, "member" + i, random.nextInt(0, 100), teamId,
+                    teamId == null ? null : "team" + teamId));
+        }
+        return members;
+    }
+
+    @Test
+    @DisplayName("순차 / 병렬 / 박싱 groupingBy 결과가 같다")
+    void sameAsBoxed() {
+        List<MemberTeamDto> members = members(50_000, 42);
+
+        Map<Long, Long> boxedCounts = members.stream().filter(m -> m.getTeamId() != null)
+                .collect(Collectors.groupingBy(MemberTeamDto::getTeamId, Collectors.counting()));
+        Map<Long, Integer> boxedAgeSums = members.stream().filter(m -> m.getTeamId() != null)
+                .collect(Collectors.groupingBy(MemberTeamDto::getTeamId, Collectors.summingInt(MemberTeamDto::getAge)));
+        long noTeam = members.stream().filter(m -> m.getTeamId() == null).count();
+
+        for (MemberAnalytics analytics : List.of(sequential, parallel)) {
+            TeamAgeTotals totals = analytics.byTeam(members);
+            assertThat(totals.teamCount()).isEqualTo(boxedCounts.size());
+            for (long teamId : totals.teamIds()) {
+                assertThat(totals.count(teamId)).isEqualTo(boxedCounts.get(teamId));
+                assertThat(totals.ageSum(teamId)).isEqualTo(boxedAgeSums.get(teamId).longValue());
+            }
+            assertThat(totals.count(null)).isEqualTo(noTeam);
+            assertThat(totals.count(-1L)).isZero();
+        }
+
+        Integer boxedSum = members.stream().map(MemberTeamDto::getAge).reduce(0, Integer::sum);
+        assertThat(sequential.ageSum(members)).isEqualTo(boxedSum.longValue());
+        assertThat(parallel.ageSum(members)).isEqualTo(boxedSum.longValue());
+
+        IntSummaryStatistics expected = members.stream().collect(Collectors.summarizingInt(MemberTeamDto::getAge));
+        IntSummaryStatistics actual = parallel.ageStatistics(new LinkedList<>(members));
+        assertThat(actual.getCount()).isEqualTo(expected.getCount());
+        assertThat(actual.getSum()).isEqualTo(expected.getSum());
+        assertThat(actual.getMin()).isEqualTo(expected.getMin());
+        assertThat(actual.getMax()).isEqualTo(expected.getMax());
+    }
+
+    @Test
+    @DisplayName("나이 구간 히스토그램")
+    void ageBands() {
+        List<MemberTeamDto> members = members(20_000, 7);
+        Map<Integer, Long> boxed = members.stream()
+                .collect(Collectors.groupingBy(m -> m.getAge() / 10 * 10, Collectors.counting()));
+
+        AgeBandHistogram histogram = parallel.ageBands(members, 10);
+        assertThat(histogram.getTotal()).isEqualTo(members.size());
+        long[] counts = histogram.toArray();
+        assertThat(counts).hasSize(10);
+        for (int band = 0; band < counts.length; band++) {
+            assertThat(counts[band]).isEqualTo(boxed.getOrDefault(band * 10, 0L));
+        }
+        assertThat(sequential.ageBands(members, 10).toArray()).isEqualTo(counts);
+        assertThat(histogram.countOf(1000)).isZero();
+    }
+}
@@ -0,0 +1,166 @@
+package com.spring.jpadata.cache;
+
+import com.spring.jpadata.entity.Member;
+import com.spring.jpadata.entity.Team;
+import com.spring.jpadata.repository.jpadata.MemberRepository;
+import com.spring.jpadata.repository.jpadata.TeamRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//버전은 커밋 후에 올라가므로 테스트 트랜잭션 없이 돌린다
+@SpringBootTest
+@AutoConfigureMockMvc
+class TableVersionTrackerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TableVersionTracker tableVersionTracker;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    List<Member> members = new ArrayList<>();
+    Team team;
+
+    @BeforeEach
+    void before() {
+        team = teamRepository.save(new Team("etagTeam"));
+        members.add(memberRepository.save(new Member("etagMember1", 10, team)));
+    }
+
+    @AfterEach
+    void after() {
+        memberRepository.deleteAllInBatch(members);
+        teamRepository.deleteById(team.getId());
+    }
+
+    @Test
+    @DisplayName("바뀐 게 없으면 검색 / count 쿼리 없이 304")
+    void notModified() throws Exception {
+        String etag = mockMvc.perform(get("/v3/members").param("teamName", "etagTeam"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED))
+                .andExpect(jsonPath("$.content[0].username").value("etagMember1"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotNull();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long statements = statistics.getPrepareStatementCount();
+
+        mockMvc.perform(get("/v3/members").param("teamName", "etagTeam").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+        mockMvc.perform(get("/v1/members").param("teamName", "etagTeam").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements);
+    }
+
+    @Test
+    @DisplayName("If-Modified-Since 만 보내면 304 를 주지 않는다 (초 단위라 같은 초 안의 변경을 놓친다)")
+    void ignoresIfModifiedSince() throws Exception {
+        long now = System.currentTimeMillis();
+        members.add(memberRepository.save(new Member("etagMember2", 20, team)));
+
+        mockMvc.perform(get("/v3/members").param("teamName", "etagTeam").header(HttpHeaders.IF_MODIFIED_SINCE, now + 60_000))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2));
+    }
+
+    @Test
+    @DisplayName("member / team 변경, 벌크 update 가 커밋되면 ETag 가 바뀐다")
+    void modified() throws Exception {
+        String etag = etagOf();
+
+        members.add(memberRepository.save(new Member("etagMember2", 20, team)));
+        String afterMemberInsert = etagOf();
+        assertThat(afterMemberInsert).isNotEqualTo(etag);
+        mockMvc.perform(get("/v1/members").param("teamName", "etagTeam").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+
+        Team other = teamRepository.save(new Team("etagOther"));
+        String afterTeamInsert = etagOf();
+        assertThat(afterTeamInsert).isNotEqualTo(afterMemberInsert);
+        teamRepository.deleteById(other.getId());
+
+        String beforeBulk = etagOf();
+        memberRepository.bulkAgePlus(Integer.MAX_VALUE);
+        assertThat(etagOf()).isNotEqualTo(beforeBulk);
+    }
+
+    @Test
+    @DisplayName("바깥 트랜잭션이 먼저 바꿨어도 REQUIRES_NEW 안쪽 커밋은 따로 버전을 올린다 (바깥 롤백은 안 올린다)")
+    void requiresNewInsideChangedTransaction() {
+        TransactionTemplate inner = new TransactionTemplate(transactionManager);
+        inner.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        List<Team> committedTeams = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(outer -> {
+                teamRepository.save(new Team("etagRolledBack"));
+                memberRepository.save(new Member("etagRolledBack", 30, team));
+                em.flush();
+                long memberVersion = tableVersionTracker.getMemberVersion();
+                long teamVersion = tableVersionTracker.getTeamVersion();
+
+                inner.executeWithoutResult(status -> {
+                    committedTeams.add(teamRepository.save(new Team("etagInner")));
+                    members.add(memberRepository.save(new Member("etagInner", 40, team)));
+                });
+                assertThat(tableVersionTracker.getMemberVersion()).isGreaterThan(memberVersion);
+                assertThat(tableVersionTracker.getTeamVersion()).isGreaterThan(teamVersion);
+                outer.setRollbackOnly();
+            });
+            long memberVersion = tableVersionTracker.getMemberVersion();
+            long teamVersion = tableVersionTracker.getTeamVersion();
+            transactionTemplate.executeWithoutResult(outer -> {
+                teamRepository.save(new Team("etagRolledBack"));
+                memberRepository.save(new Member("etagRolledBack", 30, team));
+                em.flush();
+                outer.setRollbackOnly();
+            });
+            assertThat(tableVersionTracker.getMemberVersion()).isEqualTo(memberVersion);
+            assertThat(tableVersionTracker.getTeamVersion()).isEqualTo(teamVersion);
+        } finally {
+            teamRepository.deleteAllInBatch(committedTeams);
+        }
+    }
+
+    private String etagOf() throws Exception {
+        return mockMvc.perform(get("/v1/members").param("teamName", "etagTeam"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+}
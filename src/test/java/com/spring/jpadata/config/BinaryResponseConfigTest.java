@@ -0,0 +1,80 @@
+package com.spring.jpadata.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.spring.jpadata.entity.Member;
+import com.spring.jpadata.entity.Team;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class BinaryResponseConfigTest {
+
+    @Autowired
+    MockMvc mockMvc;
+    @PersistenceContext
+    EntityManager em;
+
+    @Test
+    @DisplayName("Accept: application/cbor 면 위치 기반 배열로 내려준다")
+    void cborPage() throws Exception {
+        Team team = new Team("cbor-team");
+        em.persist(team);
+        em.persist(new Member("cbor1", 10, team));
+        em.persist(new Member("cbor2", 20, team));
+        em.flush();
+
+        byte[] body = mockMvc.perform(get("/v3/members")
+                        .param("teamName", "cbor-team").param("size", "1").param("sort", "id")
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode page = new CBORMapper().readTree(body);
+        assertThat(page.isArray()).isTrue();
+        assertThat(page.size()).isEqualTo(5);
+        assertThat(page.get(1).asInt()).isEqualTo(0); // number
+        assertThat(page.get(2).asInt()).isEqualTo(1); // size
+        assertThat(page.get(3).asLong()).isEqualTo(2); // totalElements
+        assertThat(page.get(4).asBoolean()).isTrue(); // hasNext
+
+        JsonNode member = page.get(0).get(0);
+        assertThat(member.get(1).asText()).isEqualTo("cbor1");
+        assertThat(member.get(2).asInt()).isEqualTo(10);
+        assertThat(member.get(3).asLong()).isEqualTo(team.getId());
+        assertThat(member.get(4).asText()).isEqualTo("cbor-team");
+    }
+
+    @Test
+    @DisplayName("JSON 응답은 그대로")
+    void jsonUnchanged() throws Exception {
+        Team team = new Team("json-team");
+        em.persist(team);
+        em.persist(new Member("json1", 10, team));
+        em.flush();
+
+        mockMvc.perform(get("/v1/members").param("teamName", "json-team"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[0].username").value("json1"))
+                .andExpect(jsonPath("$[0].teamName").value("json-team"));
+    }
+}
@@ -0,0 +1,161 @@
+package com.spring.jpadata.diagnostics;
+
+import com.spring.jpadata.entity.Member;
+import com.spring.jpadata.entity.Team;
+import com.spring.jpadata.repository.jpadata.MemberRepository;
+import com.spring.jpadata.repository.jpadata.TeamRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "jpadata.lazy-load-guard.mode=fail")
+@AutoConfigureMockMvc
+@Import(LazyLoadGuardTest.TeamNameController.class)
+class LazyLoadGuardTest {
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    LazyLoadGuard lazyLoadGuard;
+    @Autowired
+    LazyLoadGuardProperties properties;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+
+    List<Team> teams = new ArrayList<>();
+    List<Member> members = new ArrayList<>();
+
+    @BeforeEach
+    void before() {
+        for (int i = 0; i < 3; i++) {
+            Team team = teamRepository.save(new Team("lazyTeam" + i));
+            teams.add(team);
+            members.add(memberRepository.save(new Member("lazyMember" + i, i, team)));
+        }
+        lazyLoadGuard.clear();
+    }
+
+    @AfterEach
+    void after() {
+        properties.setMode(LazyLoadGuardProperties.Mode.FAIL);
+        memberRepository.deleteAllInBatch(members);
+        teams.forEach(team -> teamRepository.deleteById(team.getId()));
+    }
+
+    @Test
+    @DisplayName("COUNT: 요청 안의 지연 로딩을 세고 호출 위치를 남긴다")
+    void count() throws Exception {
+        properties.setMode(LazyLoadGuardProperties.Mode.COUNT);
+
+        mockMvc.perform(get("/test/lazy-team-names").param("username", "lazyMember"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("lazyTeam0,lazyTeam1,lazyTeam2"));
+
+        assertThat(lazyLoadGuard.getSites()).hasSize(1);
+        LazyLoadSite site = lazyLoadGuard.getSites().get(0);
+        assertThat(site.getCount()).isEqualTo(3);
+        assertThat(site.getTarget()).isEqualTo("Team");
+        assertThat(site.getCallSite()).startsWith("LazyLoadGuardTest$TeamNameController.lambda$teamNames$");
+        assertThat(site.getLastScope()).contains("GET /test/lazy-team-names", "TeamNameController.teamNames");
+    }
+
+    @Test
+    @DisplayName("FAIL: 허용 횟수를 넘으면 쿼리가 나가기 전에 실패")
+    void fail() {
+        properties.setFailThreshold(1);
+        try {
+            assertThatThrownBy(() -> mockMvc.perform(get("/test/lazy-team-names").param("username", "lazyMember")))
+                    .hasRootCauseInstanceOf(LazyLoadViolationException.class)
+                    .hasStackTraceContaining("lazy load #2");
+        } finally {
+            properties.setFailThreshold(0);
+        }
+    }
+
+    @Test
+    @DisplayName("지연 컬렉션 초기화도 잡는다, scope 밖이면 리포트에만 남긴다")
+    void collection(@Autowired PlatformTransactionManager transactionManager,
+                    @Autowired EntityManager em) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Integer size = transactionTemplate.execute(status ->
+                em.find(Team.class, teams.get(0).getId()).getMembers().size());
+        assertThat(size).isEqualTo(1);
+
+        assertThat(lazyLoadGuard.getSites()).extracting(LazyLoadSite::getTarget).containsExactly("Team.members");
+        assertThat(lazyLoadGuard.getSites().get(0).getLastScope()).isNull();
+
+        try (LazyLoadGuard.Scope scope = lazyLoadGuard.open("collection-test")) {
+            assertThatThrownBy(() -> transactionTemplate.execute(status ->
+                    em.find(Team.class, teams.get(1).getId()).getMembers().size()))
+                    .isInstanceOf(LazyLoadViolationException.class);
+            assertThat(scope.getHits()).hasSize(1);
+        }
+    }
+
+    @Test
+    @DisplayName("비동기 요청: 요청 스레드가 빠질 때와 재디스패치가 끝날 때 scope 를 닫는다")
+    void asyncRequest() throws Exception {
+        MvcResult result = mockMvc.perform(get("/reactive/members").param("username", "lazyMember0"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(lazyLoadGuard.currentScope()).isNull();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("lazyMember0")));
+        assertThat(lazyLoadGuard.currentScope()).isNull();
+    }
+
+    //요청 안에서 member 마다 getTeam().getName() -> 팀 수만큼 프록시 초기화 (N+1)
+    @TestConfiguration
+    @RestController
+    static class TeamNameController {
+
+        @Autowired
+        MemberRepository memberRepository;
+        @Autowired
+        PlatformTransactionManager transactionManager;
+        @PersistenceContext
+        EntityManager em;
+
+        @GetMapping("/test/lazy-team-names")
+        public String teamNames(@RequestParam String username) {
+            return new TransactionTemplate(transactionManager).execute(status ->
+                    em.createQuery("select m from Member m where m.username like :username order by m.username", Member.class)
+                            .setParameter("username", username + "%")
+                            .getResultList().stream()
+                            .map(member -> member.getTeam().getName())
+                            .collect(Collectors.joining(",")));
+        }
+    }
+}
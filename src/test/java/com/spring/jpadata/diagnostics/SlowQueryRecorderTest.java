@@ -0,0 +1,62 @@
+package com.spring.jpadata.diagnostics;
+
+import com.spring.jpadata.dto.MemberSearchCondition;
+import com.spring.jpadata.repository.jpadata.MemberRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "jpadata.diagnostics.slow-query.enabled=true",
+        "jpadata.diagnostics.slow-query.threshold-ms=0",
+        "jpadata.diagnostics.slow-query.capacity=3"})
+@Transactional
+class SlowQueryRecorderTest {
+
+    @Autowired
+    SlowQueryRecorder slowQueryRecorder;
+    @Autowired
+    MemberRepository memberRepository;
+
+    @BeforeEach
+    void before() {
+        slowQueryRecorder.clear();
+    }
+
+    @Test
+    @DisplayName("리포지토리 메소드, 조건 모양별로 EXPLAIN 이 기록된다")
+    void recordsPlanWithContext() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(10);
+        memberRepository.search(condition);
+
+        List<SlowQuery> recent = slowQueryRecorder.getRecent();
+        assertThat(recent).hasSize(1);
+        SlowQuery slowQuery = recent.get(0);
+        assertThat(slowQuery.getMethod()).isEqualTo("MemberRepository.search");
+        assertThat(slowQuery.getShape()).isEqualTo("teamName,ageGoe");
+        assertThat(slowQuery.getPlan()).contains("IDX_TEAM_NAME");
+    }
+
+    @Test
+    @DisplayName("ring buffer 는 최근 capacity 개만 보관한다")
+    void boundedBuffer() {
+        for (int i = 0; i < 5; i++) {
+            memberRepository.findByUsername("ring" + i);
+        }
+
+        List<SlowQuery> recent = slowQueryRecorder.getRecent();
+        assertThat(recent).hasSize(3);
+        assertThat(recent.stream().map(SlowQuery::getMethod).collect(Collectors.toSet()))
+                .containsExactly("MemberRepository.findByUsername");
+    }
+}
@@ -0,0 +1,42 @@
+package com.spring.jpadata.diagnostics;
+
+import com.spring.jpadata.repository.jpadata.MemberRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "jpadata.sql-log.default-rate=0",
+        "jpadata.sql-log.methods[MemberRepository.findByUsername]=1.0"})
+@Transactional
+@ExtendWith(OutputCaptureExtension.class)
+class SqlLogListenerTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Test
+    @DisplayName("메소드별 샘플링 비율대로 백그라운드 스레드가 SQL 과 파라미터를 찍는다")
+    void sampledPerMethod(CapturedOutput output) throws InterruptedException {
+        memberRepository.findByUsername("sql-log-sampled");
+        memberRepository.findUsername(); // 비율 0 -> 안 찍힘
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!output.getOut().contains("sql-log-sampled") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertThat(output.getOut())
+                .contains("sql-log-writer")
+                .contains("[MemberRepository.findByUsername]")
+                .contains("[(sql-log-sampled)]")
+                .doesNotContain("[MemberRepository.findUsername]");
+    }
+}
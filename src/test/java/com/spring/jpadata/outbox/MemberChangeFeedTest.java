@@ -0,0 +1,238 @@
+package com.spring.jpadata.outbox;
+
+import com.spring.jpadata.entity.Member;
+import com.spring.jpadata.entity.MemberChange;
+import com.spring.jpadata.entity.Team;
+import com.spring.jpadata.repository.jpadata.MemberChangeRepository;
+import com.spring.jpadata.repository.jpadata.MemberRepository;
+import com.spring.jpadata.repository.jpadata.TeamRepository;
+import com.spring.jpadata.repository.pure.MemberJpaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
+
+//피드는 커밋된 기록만 읽으므로 테스트 트랜잭션 없이 커밋하고 끝나면 지운다
+@SpringBootTest(properties = "jpadata.outbox.gap-grace-ms=0")
+class MemberChangeFeedTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    MemberChangeRepository memberChangeRepository;
+    @Autowired
+    MemberChangeFeed memberChangeFeed;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    long offset;
+    List<Member> members = new ArrayList<>();
+    List<Team> teams = new ArrayList<>();
+
+    @BeforeEach
+    void before() {
+        offset = memberChangeRepository.findLastId();
+    }
+
+    @AfterEach
+    void after() {
+        memberRepository.deleteAllInBatch(members);
+        teamRepository.deleteAllInBatch(teams);
+    }
+
+    @Test
+    @DisplayName("리포지토리 insert/update/delete 가 같은 트랜잭션에 기록된다")
+    void recordsEntityChanges() {
+        Member[] saved = transactionTemplate.execute(status -> {
+            Team team = teamRepository.save(new Team("outboxTeam"));
+            Member member1 = memberRepository.save(new Member("outbox1", 10, team));
+            Member member2 = memberJpaRepository.save(new Member("outbox2", 20));
+            em.flush();
+
+            member1.setAge(11);
+            em.flush();
+            memberRepository.delete(member2);
+            em.flush();
+            teams.add(team);
+            return new Member[]{member1, member2};
+        });
+        members.add(saved[0]);
+        Long teamId = teams.get(0).getId();
+
+        MemberChangeBatch batch = memberChangeFeed.readSince(offset, 100);
+        assertThat(batch.getChanges())
+                .extracting(MemberChange::getMemberId, MemberChange::getType, MemberChange::getAge, MemberChange::getTeamId)
+                .containsExactly(
+                        tuple(saved[0].getId(), MemberChange.Type.INSERT, 10, teamId),
+                        tuple(saved[1].getId(), MemberChange.Type.INSERT, 20, null),
+                        tuple(saved[0].getId(), MemberChange.Type.UPDATE, 11, teamId),
+                        tuple(saved[1].getId(), MemberChange.Type.DELETE, 20, null));
+        assertThat(batch.getNextOffset()).isEqualTo(batch.getChanges().get(3).getId());
+    }
+
+    @Test
+    @DisplayName("호출한 쪽 트랜잭션이 아직 커밋 안 한 기록, 롤백된 기록은 읽지 않는다")
+    void readsCommittedOnly() {
+        transactionTemplate.executeWithoutResult(status -> {
+            memberRepository.save(new Member("uncommitted", 10));
+            em.flush();
+            assertThat(memberChangeFeed.readSince(offset, 100).isEmpty()).isTrue();
+            status.setRollbackOnly();
+        });
+        assertThat(memberChangeFeed.readSince(offset, 100).isEmpty()).isTrue();
+
+        members.add(memberRepository.save(new Member("committed", 10)));
+        assertThat(memberChangeFeed.readSince(offset, 100).getChanges())
+                .extracting(MemberChange::getUsername)
+                .containsExactly("committed");
+    }
+
+    @Test
+    @DisplayName("벌크 update 도 바뀐 행마다 기록된다")
+    void recordsBulkUpdate() {
+        //커밋되므로 다른 테스트 데이터가 걸리지 않는 나이로
+        Member young = save(new Member("bulkYoung", 1010));
+        Member old1 = save(new Member("bulkOld1", 1040));
+        Member old2 = save(new Member("bulkOld2", 1050));
+        long afterInsert = memberChangeFeed.tail(offset, 100, batch -> { });
+
+        int count = memberRepository.bulkAgePlus(1040);
+
+        MemberChangeBatch batch = memberChangeFeed.readSince(afterInsert, 1000);
+        assertThat(batch.getChanges()).hasSize(count);
+        assertThat(batch.getChanges())
+                .extracting(MemberChange::getMemberId, MemberChange::getType, MemberChange::getAge)
+                .contains(
+                        tuple(old1.getId(), MemberChange.Type.UPDATE, 1041),
+                        tuple(old2.getId(), MemberChange.Type.UPDATE, 1051));
+        assertThat(batch.getChanges()).extracting(MemberChange::getMemberId).doesNotContain(young.getId());
+    }
+
+    @Test
+    @DisplayName("tail 은 batchSize 씩 끝까지 따라잡는다")
+    void tailInBatches() {
+        for (int i = 0; i < 5; i++) {
+            save(new Member("tail" + i, i));
+        }
+
+        List<Integer> batchSizes = new ArrayList<>();
+        List<String> usernames = new ArrayList<>();
+        long last = memberChangeFeed.tail(offset, 2, batch -> {
+            batchSizes.add(batch.getChanges().size());
+            batch.getChanges().forEach(change -> usernames.add(change.getUsername()));
+        });
+
+        assertThat(batchSizes).containsExactly(2, 2, 1);
+        assertThat(usernames).containsExactly("tail0", "tail1", "tail2", "tail3", "tail4");
+        assertThat(memberChangeFeed.readSince(last, 2).isEmpty()).isTrue();
+    }
+
+    @Test
+    @DisplayName("settledPosition: 아직 커밋 안 된 트랜잭션의 id 앞에서 멈추고 그 뒤에 보이는 기록은 applied 로")
+    void settledPositionStopsBeforeInFlight() throws Exception {
+        //gap 을 롤백으로 넘기지 않도록 grace 가 긴 피드
+        MemberChangeFeed feed = new MemberChangeFeed(memberChangeRepository, transactionManager, 60_000);
+        CountDownLatch flushed = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Member> inFlight = executor.submit(() -> transactionTemplate.execute(status -> {
+                Member member = memberRepository.save(new Member("inFlight", 10));
+                em.flush();
+                flushed.countDown();
+                await(release);
+                return member;
+            }));
+            await(flushed);
+            save(new Member("committedAfter", 10));
+            long committedChangeId = memberChangeRepository.findLastId();
+
+            MemberChangePosition position = transactionTemplate.execute(status -> feed.settledPosition());
+
+            release.countDown();
+            members.add(inFlight.get(10, TimeUnit.SECONDS));
+            MemberChange inFlightChange = memberChangeFeed.readSince(offset, 100).getChanges().stream()
+                    .filter(change -> "inFlight".equals(change.getUsername()))
+                    .findFirst()
+                    .orElseThrow(AssertionError::new);
+
+            assertThat(position.getOffset()).isLessThan(inFlightChange.getId());
+            assertThat(position.appliedIds()).contains(committedChangeId).doesNotContain(inFlightChange.getId());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("gap 뒤 기록이 grace 보다 오래됐어도 gap 을 처음 본 뒤 grace 가 지나기 전에는 넘기지 않는다")
+    void gapGraceCountsFromFirstSeen() throws Exception {
+        MemberChangeFeed feed = new MemberChangeFeed(memberChangeRepository, transactionManager, 300);
+        CountDownLatch flushed = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Member> longTransaction = executor.submit(() -> transactionTemplate.execute(status -> {
+                Member member = memberRepository.save(new Member("longTransaction", 10));
+                em.flush();
+                flushed.countDown();
+                await(release);
+                return member;
+            }));
+            await(flushed);
+            save(new Member("committedBefore", 10));
+            //gap 뒤 기록의 created_at 은 이미 grace 를 넘겼다
+            Thread.sleep(500);
+
+            MemberChangeBatch beforeCommit = feed.readSince(offset, 100);
+            assertThat(beforeCommit.getChanges()).extracting(MemberChange::getUsername).doesNotContain("committedBefore");
+
+            release.countDown();
+            members.add(longTransaction.get(10, TimeUnit.SECONDS));
+            assertThat(feed.readSince(beforeCommit.getNextOffset(), 100).getChanges())
+                    .extracting(MemberChange::getUsername)
+                    .containsExactly("longTransaction", "committedBefore");
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Member save(Member member) {
+        Member saved = memberRepository.save(member);
+        members.add(saved);
+        return saved;
+    }
+}
@@ -0,0 +1,24 @@
+package com.spring.jpadata.repository.jpadata;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**테스트에서 hibernate 가 만든 SQL 을 그대로 받아보기 위한 inspector*/
+public class CapturingStatementInspector implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> captured = ThreadLocal.withInitial(ArrayList::new);
+
+    @Override
+    public String inspect(String sql) {
+        captured.get().add(sql);
+        return sql;
+    }
+
+    public static List<String> drain() {
+        List<String> sqls = new ArrayList<>(captured.get());
+        captured.get().clear();
+        return sqls;
+    }
+}
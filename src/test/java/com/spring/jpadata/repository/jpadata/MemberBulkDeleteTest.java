@@ -0,0 +1,196 @@
+package com.spring.jpadata.repository.jpadata;
+
+import com.spring.jpadata.dto.BulkDeleteResult;
+import com.spring.jpadata.dto.InvalidSearchConditionException;
+import com.spring.jpadata.dto.MemberResponse;
+import com.spring.jpadata.dto.MemberSearchCondition;
+import com.spring.jpadata.dto.MemberTeamDto;
+import com.spring.jpadata.entity.Member;
+import com.spring.jpadata.entity.MemberArchive;
+import com.spring.jpadata.entity.MemberChange;
+import com.spring.jpadata.entity.Team;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+//청크마다 새 트랜잭션으로 커밋하므로 테스트 트랜잭션 없이 돌린다 (archiveBySearchCondition 도 같은 청크 경로)
+//max-results 는 검색 결과 상한일 뿐 삭제 대상 수는 자르지 않는다
+@SpringBootTest(properties = {
+        "jpadata.bulk-delete.chunk-size=2",
+        "jpadata.username-index.max-results=2"})
+class MemberBulkDeleteTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    MemberChangeRepository memberChangeRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    EntityManager em;
+
+    Team team;
+    List<Member> members = new ArrayList<>();
+
+    @BeforeEach
+    void before() {
+        team = teamRepository.save(new Team("bulkDeleteTeam"));
+        for (int i = 0; i < 5; i++) {
+            members.add(memberRepository.save(new Member("bulkDelete" + i, 60 + i, team)));
+        }
+    }
+
+    @AfterEach
+    void after() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> em
+                .createQuery("delete from MemberArchive a where a.team.id = :teamId")
+                .setParameter("teamId", team.getId())
+                .executeUpdate());
+        memberRepository.deleteAllInBatch(members);
+        teamRepository.deleteById(team.getId());
+    }
+
+    @Test
+    @DisplayName("조건에 맞는 member 를 청크 크기만큼씩 별도 트랜잭션으로 지우고 member_change 에 남긴다")
+    void deleteInChunks() {
+        long lastChangeId = memberChangeRepository.findLastId();
+
+        BulkDeleteResult result = memberRepository.deleteBySearchCondition(teamCondition(62, false));
+
+        assertThat(result.getDeleted()).isEqualTo(3);
+        assertThat(result.getChunks()).isEqualTo(2);
+        assertThat(result.getRowsPerSecond()).isPositive();
+        assertThat(memberRepository.findIdsByTeamIds(new long[]{team.getId()}))
+                .containsExactly(members.get(0).getId(), members.get(1).getId());
+
+        List<MemberChange> changes = memberChangeRepository.findByIdGreaterThanOrderByIdAsc(lastChangeId, PageRequest.of(0, 10));
+        assertThat(changes).extracting("type").containsOnly(MemberChange.Type.DELETE);
+        assertThat(changes).extracting("memberId")
+                .containsExactly(members.get(2).getId(), members.get(3).getId(), members.get(4).getId());
+    }
+
+    @Test
+    @DisplayName("usernameContains 조건은 max-results 보다 많아도 전부, 호출한 쪽 영속성 컨텍스트에서도 빠진다")
+    void textSearchAndEvict() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernameContains("bulkDelete");
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Member loaded = em.find(Member.class, members.get(0).getId());
+            assertThat(em.contains(loaded)).isTrue();
+
+            BulkDeleteResult result = memberRepository.deleteBySearchCondition(condition);
+
+            assertThat(result.getDeleted()).isEqualTo(5);
+            assertThat(result.getChunks()).isEqualTo(3);
+            assertThat(em.contains(loaded)).isFalse();
+            assertThat(em.find(Member.class, members.get(0).getId())).isNull();
+        });
+    }
+
+    @Test
+    @DisplayName("archive: 지우는 대신 member_archive 로 옮기고 archived_at 을 남긴다")
+    void archiveMovesRows() {
+        LocalDateTime startedAt = LocalDateTime.now().minusSeconds(1);
+
+        BulkDeleteResult result = memberRepository.archiveBySearchCondition(teamCondition(62, false));
+
+        assertThat(result.getDeleted()).isEqualTo(3);
+        List<MemberArchive> archived = em.createQuery(
+                        "select a from MemberArchive a where a.team.id = :teamId order by a.id", MemberArchive.class)
+                .setParameter("teamId", team.getId())
+                .getResultList();
+        assertThat(archived).extracting("id", "username", "age").containsExactly(
+                tuple(members.get(2).getId(), "bulkDelete2", 62),
+                tuple(members.get(3).getId(), "bulkDelete3", 63),
+                tuple(members.get(4).getId(), "bulkDelete4", 64));
+        assertThat(archived).allSatisfy(archive -> assertThat(archive.getArchivedAt())
+                .isAfterOrEqualTo(startedAt)
+                .isBeforeOrEqualTo(LocalDateTime.now().plusSeconds(1)));
+    }
+
+    @Test
+    @DisplayName("includeArchived 검색은 member, member_archive 를 id 순으로 합쳐서 페이징한다")
+    void searchIncludeArchived() {
+        memberRepository.archiveBySearchCondition(teamCondition(62, false));
+
+        assertThat(memberRepository.search(teamCondition(null, false))).extracting("username")
+                .containsExactly("bulkDelete0", "bulkDelete1");
+        List<MemberTeamDto> all = memberRepository.search(teamCondition(null, true));
+        assertThat(all).extracting("username")
+                .containsExactly("bulkDelete0", "bulkDelete1", "bulkDelete2", "bulkDelete3", "bulkDelete4");
+        assertThat(all).extracting("teamName").containsOnly("bulkDeleteTeam");
+
+        Page<MemberTeamDto> page = memberRepository.searchPageComplex(teamCondition(null, true), PageRequest.of(1, 3));
+        assertThat(page.getContent()).extracting("username").containsExactly("bulkDelete3", "bulkDelete4");
+        assertThat(page.getTotalElements()).isEqualTo(5);
+
+        Page<MemberTeamDto> simple = memberRepository.searchPageSimple(teamCondition(null, true), PageRequest.of(0, 3));
+        assertThat(simple.getContent()).extracting("username").containsExactly("bulkDelete0", "bulkDelete1", "bulkDelete2");
+        assertThat(simple.getTotalElements()).isEqualTo(5);
+
+        Slice<MemberTeamDto> slice = memberRepository.searchSlice(teamCondition(null, true), PageRequest.of(0, 4));
+        assertThat(slice.getContent()).hasSize(4);
+        assertThat(slice.hasNext()).isTrue();
+
+        List<MemberResponse> summaries = memberRepository.search(teamCondition(63, true), MemberFetchProfile.SUMMARY);
+        assertThat(summaries).extracting("username").containsExactly("bulkDelete3", "bulkDelete4");
+        assertThat(memberRepository.search(teamCondition(null, true), MemberFetchProfile.ID_ONLY))
+                .containsExactlyElementsOf(members.stream().map(Member::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    @DisplayName("includeArchived 를 못 쓰는 경로 (username 인덱스 검색, 조건 삭제) 는 무시하지 않고 거절한다")
+    void rejectsUnsupportedIncludeArchived() {
+        MemberSearchCondition textSearch = teamCondition(null, true);
+        textSearch.setUsernameContains("bulkDelete");
+
+        assertThatThrownBy(() -> memberRepository.search(textSearch))
+                .isInstanceOf(InvalidSearchConditionException.class);
+        assertThatThrownBy(() -> memberRepository.searchPageComplex(textSearch, PageRequest.of(0, 3)))
+                .isInstanceOf(InvalidSearchConditionException.class);
+        assertThatThrownBy(() -> memberRepository.deleteBySearchCondition(teamCondition(62, true)))
+                .isInstanceOf(InvalidSearchConditionException.class);
+        assertThat(memberRepository.findIdsByTeamIds(new long[]{team.getId()})).hasSize(5);
+    }
+
+    @Test
+    @DisplayName("조건이 하나도 없으면 전체를 지우지 않고 거절한다")
+    void rejectsEmptyCondition() {
+        long count = memberRepository.count();
+
+        assertThatThrownBy(() -> memberRepository.deleteBySearchCondition(new MemberSearchCondition()))
+                .isInstanceOf(InvalidSearchConditionException.class);
+        assertThatThrownBy(() -> memberRepository.archiveBySearchCondition(new MemberSearchCondition()))
+                .isInstanceOf(InvalidSearchConditionException.class);
+        assertThat(memberRepository.count()).isEqualTo(count);
+    }
+
+    private MemberSearchCondition teamCondition(Integer ageGoe, boolean includeArchived) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("bulkDeleteTeam");
+        condition.setAgeGoe(ageGoe);
+        condition.setIncludeArchived(includeArchived);
+        return condition;
+    }
+}
@@ -0,0 +1,98 @@
+package com.spring.jpadata.repository.jpadata;
+
+import com.spring.jpadata.dto.MemberSearchCondition;
+import com.spring.jpadata.entity.Member;
+import com.spring.jpadata.entity.Team;
+import com.spring.jpadata.repository.pure.MemberJpaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//"없음" 캐시는 읽기 전용 트랜잭션에서만 쓰이므로 테스트 트랜잭션 없이 돌린다
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.spring.jpadata.repository.jpadata.CapturingStatementInspector",
+        "jpadata.exists-cache.ttl-ms=60000"})
+class MemberExistsTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    List<Member> members = new ArrayList<>();
+    Team team;
+
+    @BeforeEach
+    void before() {
+        team = teamRepository.save(new Team("existsTeam"));
+        members.add(memberRepository.save(new Member("existsMember", 77, team)));
+        CapturingStatementInspector.drain();
+    }
+
+    @AfterEach
+    void after() {
+        memberRepository.deleteAllInBatch(members);
+        teamRepository.deleteById(team.getId());
+    }
+
+    @Test
+    @DisplayName("exists 는 엔티티를 읽지 않고 select 1 ... limit 1 로 확인한다")
+    void selectOneLimitOne() {
+        assertThat(memberRepository.existsByUsername("existsMember")).isTrue();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("existsTeam");
+        condition.setAgeGoe(70);
+        assertThat(memberRepository.exists(condition)).isTrue();
+        condition.setAgeGoe(78);
+        assertThat(memberRepository.exists(condition)).isFalse();
+
+        assertThat(memberJpaRepository.existsByAge(77)).isTrue();
+
+        List<String> sqls = CapturingStatementInspector.drain();
+        assertThat(sqls).hasSize(4);
+        assertThat(sqls).allSatisfy(sql -> assertThat(sql).startsWith("select 1 as col_0_0_").contains("limit"));
+    }
+
+    @Test
+    @DisplayName("없음 결과는 캐시되고 member 가 바뀌면 비워진다")
+    void negativeCache() {
+        assertThat(memberRepository.existsByUsername("existsLater")).isFalse();
+        assertThat(memberRepository.existsByUsername("existsLater")).isFalse();
+        assertThat(CapturingStatementInspector.drain()).hasSize(1);
+
+        members.add(memberRepository.save(new Member("existsLater", 1)));
+        CapturingStatementInspector.drain();
+
+        assertThat(memberRepository.existsByUsername("existsLater")).isTrue();
+    }
+
+    @Test
+    @DisplayName("쓰기 트랜잭션 안에서는 캐시를 쓰지 않는다")
+    void bypassInsideWriteTransaction() {
+        assertThat(memberRepository.existsByUsername("existsInTx")).isFalse();
+
+        Boolean existsInTx = new TransactionTemplate(transactionManager).execute(status -> {
+            Member member = memberRepository.save(new Member("existsInTx", 1));
+            boolean exists = memberRepository.existsByUsername("existsInTx");
+            status.setRollbackOnly();
+            return exists;
+        });
+
+        assertThat(existsInTx).isTrue();
+    }
+}
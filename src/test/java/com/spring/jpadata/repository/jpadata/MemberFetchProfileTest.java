@@ -0,0 +1,111 @@
+package com.spring.jpadata.repository.jpadata;
+
+import com.spring.jpadata.dto.MemberResponse;
+import com.spring.jpadata.dto.MemberSearchCondition;
+import com.spring.jpadata.dto.MemberTeamDto;
+import com.spring.jpadata.entity.Member;
+import com.spring.jpadata.entity.Team;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.spring.jpadata.repository.jpadata.CapturingStatementInspector")
+@Transactional
+class MemberFetchProfileTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+    @PersistenceContext
+    EntityManager em;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    Member member1;
+    Member member2;
+
+    @BeforeEach
+    void before() {
+        Team team = new Team("profileTeam");
+        em.persist(team);
+        member1 = new Member("profileMember1", 41, team);
+        member2 = new Member("profileMember2", 42, team);
+        em.persist(member1);
+        em.persist(member2);
+        em.flush();
+        CapturingStatementInspector.drain();
+    }
+
+    @Test
+    @DisplayName("ID_ONLY / SUMMARY 는 필요한 컬럼만, team 조인 없이")
+    void narrowProfiles() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("profileMember1");
+
+        List<Long> ids = memberRepository.search(condition, MemberFetchProfile.ID_ONLY);
+        assertThat(ids).containsExactly(member1.getId());
+
+        Slice<MemberResponse> summaries = memberRepository.searchSlice(condition, PageRequest.of(0, 10), MemberFetchProfile.SUMMARY);
+        assertThat(summaries.getContent()).extracting("username", "age").containsExactly(
+                org.assertj.core.groups.Tuple.tuple("profileMember1", 41));
+
+        List<String> sqls = CapturingStatementInspector.drain();
+        assertThat(sqls).hasSize(2);
+        assertThat(sqls).allSatisfy(sql -> assertThat(sql.toLowerCase(Locale.ROOT)).doesNotContain("join"));
+    }
+
+    @Test
+    @DisplayName("teamName 조건이 있으면 좁은 프로필도 inner join, WITH_TEAM 은 기존과 같다")
+    void teamCondition() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("profileTeam");
+
+        Page<Long> ids = memberRepository.searchPageComplex(condition, PageRequest.of(0, 1), MemberFetchProfile.ID_ONLY);
+        assertThat(ids.getContent()).hasSize(1);
+        assertThat(ids.getTotalElements()).isEqualTo(2);
+        assertThat(CapturingStatementInspector.drain()).allSatisfy(sql ->
+                assertThat(sql.toLowerCase(Locale.ROOT)).contains("inner join").doesNotContain("left"));
+
+        Page<MemberTeamDto> withTeam = memberRepository.searchPageSimple(condition, PageRequest.of(0, 10), MemberFetchProfile.WITH_TEAM);
+        assertThat(withTeam.getContent()).extracting("teamName").containsOnly("profileTeam");
+        assertThat(memberRepository.search(condition)).isEqualTo(memberRepository.search(condition, MemberFetchProfile.WITH_TEAM));
+    }
+
+    @Test
+    @DisplayName("usernameContains 검색도 프로필대로, 관련도 순서 유지")
+    void textSearch() {
+        //username 인덱스는 커밋된 member 만 색인한다 -> 테스트 트랜잭션 밖에서 커밋하고 지운다
+        TransactionTemplate committed = new TransactionTemplate(transactionManager);
+        committed.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        Long[] ids = committed.execute(status -> new Long[]{
+                memberRepository.save(new Member("indexedProfile1", 41)).getId(),
+                memberRepository.save(new Member("indexedProfile2", 42)).getId()});
+        try {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setUsernameContains("indexedProfile");
+            condition.setAgeGoe(42);
+
+            assertThat(memberRepository.search(condition, MemberFetchProfile.ID_ONLY)).containsExactly(ids[1]);
+            assertThat(memberRepository.search(condition, MemberFetchProfile.SUMMARY)).extracting("username")
+                    .containsExactly("indexedProfile2");
+        } finally {
+            committed.executeWithoutResult(status -> memberRepository.deleteAllByIdInBatch(List.of(ids)));
+        }
+    }
+}
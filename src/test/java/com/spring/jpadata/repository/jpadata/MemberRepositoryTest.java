@@ -1,10 +1,12 @@
 
 package com.spring.jpadata.repository.jpadata;
 
+import com.spring.jpadata.dto.MemberBatchSearchResult;
 import com.spring.jpadata.dto.MemberDto;
 import com.spring.jpadata.dto.MemberSearchCondition;
 import com.spring.jpadata.dto.MemberTeamDto;
 import com.spring.jpadata.entity.Member;
+import com.spring.jpadata.entity.MemberChange;
 import com.spring.jpadata.entity.Team;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -19,11 +21,14 @@ import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -35,6 +40,8 @@ class MemberRepositoryTest {
     MemberRepository memberJpaRepository;
     @Autowired
     TeamRepository teamRepository;
+    @Autowired
+    MemberChangeRepository memberChangeRepository;
     @PersistenceContext
     EntityManager em;
 
@@ -206,4 +213,167 @@ class MemberRepositoryTest {
 
 
 
+    @Test
+    @DisplayName("in절 컬렉션이 커지면 청크로 나누어 조회 후 합친다")
+    void collectionParameterChunked() {
+        memberJpaRepository.save(new Member("chunk-member1", 10));
+        memberJpaRepository.save(new Member("chunk-member2", 20));
+        memberJpaRepository.save(new Member("chunk-member3", 30));
+
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < MemberRepositoryImpl.IN_CHUNK_SIZE * 2 + 10; i++) {
+            names.add("chunk-member" + i);
+        }
+        names.add("chunk-member1"); // 중복
+
+        List<Member> byNames = memberJpaRepository.findByNames(names);
+        assertThat(byNames).extracting("username")
+                .containsExactlyInAnyOrder("chunk-member1", "chunk-member2", "chunk-member3");
+    }
+
+    @Test
+    @DisplayName("아주 큰 컬렉션은 임시테이블 조인으로 조회한다")
+    void collectionParameterTempTable() {
+        memberJpaRepository.save(new Member("temp-member1", 10));
+        memberJpaRepository.save(new Member("temp-member2", 20));
+
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i <= MemberRepositoryImpl.TEMP_TABLE_THRESHOLD; i++) {
+            names.add("temp-member" + i);
+        }
+
+        List<Member> byNames = memberJpaRepository.findByNames(names);
+        assertThat(byNames).extracting("username")
+                .containsExactlyInAnyOrder("temp-member1", "temp-member2");
+    }
+
+    @Test
+    @DisplayName("username 스트리밍 / distinct")
+    void streamUsername() {
+        memberJpaRepository.save(new Member("stream-a", 10));
+        memberJpaRepository.save(new Member("stream-a", 20));
+        memberJpaRepository.save(new Member("stream-b", 30));
+
+        try (Stream<String> usernames = memberJpaRepository.streamUsername()) {
+            assertThat(usernames.filter(name -> name != null && name.startsWith("stream-")).count()).isEqualTo(3);
+        }
+        try (Stream<String> usernames = memberJpaRepository.streamDistinctUsername()) {
+            assertThat(usernames.filter(name -> name != null && name.startsWith("stream-")))
+                    .containsExactlyInAnyOrder("stream-a", "stream-b");
+        }
+    }
+
+    @Test
+    @DisplayName("username Slice 페이징 / prefix 검색")
+    void usernameSliceAndPrefix() {
+        memberJpaRepository.save(new Member("auto_1", 10));
+        memberJpaRepository.save(new Member("auto_1", 11));
+        memberJpaRepository.save(new Member("auto_2", 20));
+        memberJpaRepository.save(new Member("autoX3", 30)); // _ 가 와일드카드로 먹으면 같이 나온다
+
+        List<String> prefix = memberJpaRepository.findUsernameByPrefix("auto_", PageRequest.of(0, 10));
+        assertThat(prefix).containsExactly("auto_1", "auto_2");
+
+        Slice<String> slice = memberJpaRepository.findDistinctUsername(PageRequest.of(0, 1, Sort.by("username")));
+        assertThat(slice.getContent()).hasSize(1);
+        assertThat(slice.hasNext()).isTrue();
+    }
+
+    @Test
+    @DisplayName("검색 Slice: pageSize + 1 건으로 hasNext 판단")
+    void searchSlice() {
+        Team team = new Team("slice-team");
+        em.persist(team);
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("slice" + i, i, team));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("slice-team");
+
+        Slice<MemberTeamDto> first = memberJpaRepository.searchSlice(condition, PageRequest.of(0, 2));
+        assertThat(first.getContent()).extracting("username").containsExactly("slice0", "slice1");
+        assertThat(first.hasNext()).isTrue();
+
+        Slice<MemberTeamDto> last = memberJpaRepository.searchSlice(condition, first.nextPageable().next());
+        assertThat(last.getContent()).extracting("username").containsExactly("slice4");
+        assertThat(last.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("여러 조건 검색: 같은 모양끼리 한 쿼리, 결과는 조건 순서대로")
+    void searchBatch() {
+        Team teamA = new Team("batch-teamA");
+        Team teamB = new Team("batch-teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("batch1", 10, teamA));
+        em.persist(new Member("batch2", 20, teamA));
+        em.persist(new Member("batch3", 30, teamB));
+
+        List<MemberSearchCondition> conditions = new ArrayList<>();
+        for (String username : Arrays.asList("batch1", "batch3", "batch-none", "batch1")) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setUsername(username);
+            conditions.add(condition);
+        }
+        for (String teamName : Arrays.asList("batch-teamA", "batch-teamB")) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setTeamName(teamName);
+            condition.setAgeGoe(15);
+            conditions.add(condition);
+        }
+
+        MemberBatchSearchResult result = memberJpaRepository.searchBatch(conditions);
+
+        assertThat(result.getResults()).hasSize(6);
+        assertThat(result.getResults().get(0)).extracting("username").containsExactly("batch1");
+        assertThat(result.getResults().get(1)).extracting("teamName").containsExactly("batch-teamB");
+        assertThat(result.getResults().get(2)).isEmpty();
+        assertThat(result.getResults().get(3)).extracting("username").containsExactly("batch1");
+        assertThat(result.getResults().get(4)).extracting("username").containsExactly("batch2");
+        assertThat(result.getResults().get(5)).extracting("username").containsExactly("batch3");
+        assertThat(result.getQueryCount()).isEqualTo(2); // username 모양 1번, teamName,ageGoe 모양 1번
+        assertThat(result.getRoundTripsSaved()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("long[] id: 여러 건 조회, 팀 소속 id, 삭제 + member_change 기록")
+    void longIds() {
+        Team team = new Team("longIds-team");
+        em.persist(team);
+        Member member1 = new Member("longIds1", 10, team);
+        Member member2 = new Member("longIds2", 20, team);
+        Member member3 = new Member("longIds3", 30);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.flush();
+
+        //청크(1000) 를 넘기고, 중복 / 없는 id 도 섞는다
+        long[] ids = new long[MemberRepositoryImpl.IN_CHUNK_SIZE + 10];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = -1 - i;
+        }
+        ids[0] = member1.getId();
+        ids[1] = member3.getId();
+        ids[ids.length - 1] = member1.getId();
+        assertThat(memberJpaRepository.findAllByIds(ids)).extracting("username")
+                .containsExactlyInAnyOrder("longIds1", "longIds3");
+
+        assertThat(memberJpaRepository.findIdsByTeamIds(new long[]{team.getId(), team.getId()}))
+                .containsExactly(member1.getId(), member2.getId());
+
+        long lastChangeId = memberChangeRepository.findLastId();
+        assertThat(memberJpaRepository.deleteByIds(new long[]{member1.getId(), member2.getId(), -1L})).isEqualTo(2);
+        assertThat(memberJpaRepository.findAllByIds(new long[]{member1.getId(), member2.getId(), member3.getId()}))
+                .extracting("username").containsExactly("longIds3");
+
+        List<MemberChange> changes = memberChangeRepository.findByIdGreaterThanOrderByIdAsc(lastChangeId, PageRequest.of(0, 10));
+        assertThat(changes).extracting("memberId", "type").containsExactly(
+                tuple(member1.getId(), MemberChange.Type.DELETE),
+                tuple(member2.getId(), MemberChange.Type.DELETE));
+        assertThat(changes).extracting("teamId").containsOnly(team.getId());
+    }
+
 }
@@ -0,0 +1,106 @@
+package com.spring.jpadata.repository.jpadata;
+
+import com.spring.jpadata.dto.MemberSearchCondition;
+import com.spring.jpadata.seed.SeedDataGenerator;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * MemberRepositoryImpl 의 검색 조건 모양별로 실제 SQL 의 EXPLAIN 을 떠서 member 를 풀스캔하지 않는지 확인
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.spring.jpadata.repository.jpadata.CapturingStatementInspector",
+        "jpadata.seed.team-count=20",
+        "jpadata.seed.members-per-team=100"})
+@Transactional
+class MemberSearchExplainTest {
+
+    static final Pattern MEMBER_INDEX_LOOKUP =
+            Pattern.compile("\"MEMBER\" \"MEMBER0_\"\\s*/\\* PUBLIC\\.\\w+: ");
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    SeedDataGenerator seedDataGenerator;
+    @Autowired
+    EntityManager em;
+
+    @BeforeEach
+    void before() {
+        seedDataGenerator.generate();
+        em.createNativeQuery("analyze").executeUpdate();
+        CapturingStatementInspector.drain();
+    }
+
+    static Stream<Arguments> shapes() {
+        return Stream.of(
+                Arguments.of("username", condition("user1", null, null, null)),
+                Arguments.of("teamName", condition(null, "team3", null, null)),
+                Arguments.of("ageRange", condition(null, null, 70, 75)),
+                Arguments.of("username+age", condition("user1", null, 20, 30)),
+                Arguments.of("teamName+age", condition(null, "team3", 20, 30)),
+                Arguments.of("all", condition("user1", "team3", 20, 30)));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("shapes")
+    void searchUsesIndex(String shape, MemberSearchCondition condition) {
+        memberRepository.search(condition);
+        List<String> sqls = CapturingStatementInspector.drain();
+        assertThat(sqls).hasSize(1);
+
+        String plan = explain(sqls.get(0), parameters(condition));
+        System.out.println("[" + shape + "] " + plan);
+        //member 접근 경로가 "/* PUBLIC.인덱스: 조건 */" 이어야 한다 ("/* PUBLIC.인덱스 */", "/* PUBLIC.MEMBER.tableScan */" 은 풀스캔)
+        assertThat(plan).containsPattern(MEMBER_INDEX_LOOKUP);
+    }
+
+    private String explain(String sql, List<Object> parameters) {
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("explain " + sql)) {
+                for (int i = 0; i < parameters.size(); i++) {
+                    statement.setObject(i + 1, parameters.get(i));
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    resultSet.next();
+                    return resultSet.getString(1);
+                }
+            }
+        });
+    }
+
+    //where 절 순서(userNameEq, teamNameEq, ageGoe, ageLoe)대로 바인딩된다
+    private static List<Object> parameters(MemberSearchCondition condition) {
+        List<Object> parameters = new ArrayList<>();
+        if (condition.getUsername() != null) parameters.add(condition.getUsername());
+        if (condition.getTeamName() != null) parameters.add(condition.getTeamName());
+        if (condition.getAgeGoe() != null) parameters.add(condition.getAgeGoe());
+        if (condition.getAgeLoe() != null) parameters.add(condition.getAgeLoe());
+        return parameters;
+    }
+
+    private static MemberSearchCondition condition(String username, String teamName, Integer ageGoe, Integer ageLoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(username);
+        condition.setTeamName(teamName);
+        condition.setAgeGoe(ageGoe);
+        condition.setAgeLoe(ageLoe);
+        return condition;
+    }
+}
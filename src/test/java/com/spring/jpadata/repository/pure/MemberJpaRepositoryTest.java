@@ -167,4 +167,23 @@ class MemberJpaRepositoryTest {
         memberJpaRepository.save(new Member("member4", 25));
         memberJpaRepository.save(new Member("member5", 19));
     }
+
+    @Test
+    @DisplayName("long[] id 로 조회 / 팀 소속 id / 삭제")
+    void longIds() {
+        Team team = new Team("pure-longIds-team");
+        em.persist(team);
+        Member member1 = new Member("pure-longIds1", 10, team);
+        Member member2 = new Member("pure-longIds2", 20, team);
+        em.persist(member1);
+        em.persist(member2);
+
+        assertThat(memberJpaRepository.findByIds(new long[]{member2.getId(), member1.getId(), member2.getId(), -1L}))
+                .containsExactlyInAnyOrder(member1, member2);
+        assertThat(memberJpaRepository.findIdsByTeamId(team.getId())).containsExactly(member1.getId(), member2.getId());
+
+        assertThat(memberJpaRepository.deleteByIds(new long[]{member1.getId()})).isEqualTo(1);
+        em.flush();
+        assertThat(memberJpaRepository.findById(member1.getId())).isEmpty();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,125 @@
+package com.spring.jpadata.repository.reactive;
+
+import com.spring.jpadata.dto.InvalidSearchConditionException;
+import com.spring.jpadata.dto.MemberSearchCondition;
+import com.spring.jpadata.dto.MemberTeamDto;
+import com.spring.jpadata.entity.Member;
+import com.spring.jpadata.entity.Team;
+import com.spring.jpadata.repository.jpadata.MemberRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.test.StepVerifier;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * JDBC / R2DBC 둘 다 같은 in-memory H2 (같은 JVM 의 mem:reactive) 를 바라보게 해서 테스트
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:reactive;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactive?options=DB_CLOSE_DELAY=-1"})
+class MemberReactiveRepositoryTest {
+
+    @Autowired
+    MemberReactiveRepository memberReactiveRepository;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    EntityManager em;
+
+    @BeforeEach
+    void before() {
+        //R2DBC 는 별도 커넥션이라 커밋된 데이터만 보인다
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 0; i < 25; i++) {
+                em.persist(new Member("member" + i, i, i % 2 == 0 ? teamA : teamB));
+            }
+            em.persist(new Member("noTeam", 5, null));
+        });
+    }
+
+    @Test
+    @DisplayName("JPA(QueryDsl) 검색과 같은 결과")
+    void sameResultAsQuerydsl() {
+        for (MemberSearchCondition condition : List.of(
+                condition(null, null, null, null),
+                condition("member3", null, null, null),
+                condition(null, "teamB", null, null),
+                condition(null, null, 5, 10),
+                condition(null, "teamA", 4, 20))) {
+            List<MemberTeamDto> expected = memberRepository.search(condition);
+            List<MemberTeamDto> actual = memberReactiveRepository.search(condition).collectList().block();
+            assertThat(actual).usingRecursiveFieldByFieldElementComparator()
+                    .containsExactlyInAnyOrderElementsOf(expected);
+        }
+    }
+
+    @Test
+    @DisplayName("요청한 만큼 페이지 단위로 가져온다")
+    void pagedWithBackPressure() {
+        MemberSearchCondition condition = condition(null, "teamA", null, null); // 13명
+
+        StepVerifier.create(memberReactiveRepository.searchPaged(condition, 5), 0)
+                .expectSubscription()
+                .expectNoEvent(java.time.Duration.ofMillis(100))
+                .thenRequest(3)
+                .expectNextCount(3)
+                .thenRequest(Long.MAX_VALUE)
+                .expectNextCount(10)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("pageSize 가 1 보다 작으면 쿼리 전에 거절한다")
+    void rejectsNonPositivePageSize() {
+        MemberSearchCondition condition = condition(null, null, null, null);
+        assertThatThrownBy(() -> memberReactiveRepository.searchPaged(condition, 0))
+                .isInstanceOf(InvalidSearchConditionException.class);
+        assertThatThrownBy(() -> memberReactiveRepository.searchPaged(condition, -1))
+                .isInstanceOf(InvalidSearchConditionException.class);
+    }
+
+    @Test
+    @DisplayName("username 인덱스 검색, includeArchived 조건은 무시하지 않고 거절한다")
+    void rejectsUnsupportedConditions() {
+        MemberSearchCondition contains = condition(null, null, null, null);
+        contains.setUsernameContains("member1");
+        MemberSearchCondition fuzzy = condition(null, null, null, null);
+        fuzzy.setUsernameFuzzy("membr1");
+
+        assertThatThrownBy(() -> memberReactiveRepository.search(contains))
+                .isInstanceOf(InvalidSearchConditionException.class);
+        assertThatThrownBy(() -> memberReactiveRepository.searchPaged(fuzzy, 10))
+                .isInstanceOf(InvalidSearchConditionException.class);
+
+        MemberSearchCondition includeArchived = condition(null, null, null, null);
+        includeArchived.setIncludeArchived(true);
+        assertThatThrownBy(() -> memberReactiveRepository.search(includeArchived))
+                .isInstanceOf(InvalidSearchConditionException.class);
+    }
+
+    private static MemberSearchCondition condition(String username, String teamName, Integer ageGoe, Integer ageLoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(username);
+        condition.setTeamName(teamName);
+        condition.setAgeGoe(ageGoe);
+        condition.setAgeLoe(ageLoe);
+        return condition;
+    }
+}
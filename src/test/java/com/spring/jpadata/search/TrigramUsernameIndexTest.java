@@ -0,0 +1,180 @@
+package com.spring.jpadata.search;
+
+import com.spring.jpadata.dto.MemberSearchCondition;
+import com.spring.jpadata.dto.MemberTeamDto;
+import com.spring.jpadata.entity.Member;
+import com.spring.jpadata.entity.Team;
+import com.spring.jpadata.repository.jpadata.MemberRepository;
+import com.spring.jpadata.repository.jpadata.TeamRepository;
+import com.spring.jpadata.seed.SeedDataGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//인덱스는 커밋된 변경만 따라가므로 테스트 트랜잭션 없이 커밋하고 끝나면 지운다
+@SpringBootTest(properties = {
+        "jpadata.outbox.gap-grace-ms=0",
+        "jpadata.seed.team-count=2",
+        "jpadata.seed.members-per-team=50",
+        "jpadata.username-index.max-results=3"})
+class TrigramUsernameIndexTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    UsernameSearchIndex usernameSearchIndex;
+    @Autowired
+    SeedDataGenerator seedDataGenerator;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    List<Member> members = new ArrayList<>();
+    List<Team> teams = new ArrayList<>();
+
+    @AfterEach
+    void after() {
+        memberRepository.deleteAllInBatch(members);
+        teamRepository.deleteAllInBatch(teams);
+    }
+
+    @Test
+    @DisplayName("부분 문자열 검색: 완전 일치 > 앞부분 일치 > 중간 포함 순, 다른 조건과 페이징 같이")
+    void containsRankedAndPaged() {
+        Team team = teamRepository.save(new Team("textTeam"));
+        teams.add(team);
+        save(new Member("xMalloryx", 30, team));
+        save(new Member("Mallory", 20, team));
+        save(new Member("malloryKim", 40, team));
+        save(new Member("mallory-other-team", 40));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernameContains("mallory");
+        condition.setTeamName("textTeam");
+
+        List<MemberTeamDto> all = memberRepository.search(condition);
+        assertThat(all).extracting("username").containsExactly("Mallory", "malloryKim", "xMalloryx");
+
+        Page<MemberTeamDto> page = memberRepository.searchPageComplex(condition, PageRequest.of(1, 2));
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(page.getContent()).extracting("username").containsExactly("xMalloryx");
+
+        condition.setAgeGoe(35);
+        assertThat(memberRepository.search(condition)).extracting("username").containsExactly("malloryKim");
+    }
+
+    @Test
+    @DisplayName("max-results 는 teamName / age 조건으로 거른 뒤에 자른다")
+    void maxResultsAfterOtherConditions() {
+        Team team = teamRepository.save(new Team("cappedTeam"));
+        teams.add(team);
+        //팀 없는 쪽이 관련도가 더 높다 (더 짧은 username)
+        for (int i = 0; i < 4; i++) {
+            save(new Member("capped" + i, 10));
+        }
+        save(new Member("cappedTeam1", 10, team));
+        save(new Member("cappedTeam2", 10, team));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernameContains("capped");
+        assertThat(memberRepository.search(condition)).extracting("username")
+                .containsExactly("capped0", "capped1", "capped2");
+
+        condition.setTeamName("cappedTeam");
+        Page<MemberTeamDto> page = memberRepository.searchPageComplex(condition, PageRequest.of(0, 10));
+        assertThat(page.getContent()).extracting("username").containsExactly("cappedTeam1", "cappedTeam2");
+        assertThat(page.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("오타 허용 검색")
+    void fuzzy() {
+        save(new Member("bartholomew", 10));
+        save(new Member("bartolomeo", 10));
+        save(new Member("zebediah", 10));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernameFuzzy("bartholomeu");
+
+        assertThat(memberRepository.search(condition)).extracting("username")
+                .startsWith("bartholomew")
+                .doesNotContain("zebediah");
+    }
+
+    @Test
+    @DisplayName("username 변경 / 삭제를 피드로 따라간다")
+    void followsChanges() {
+        Member member = memberRepository.save(new Member("quentinOld", 10));
+        assertThat(ids(usernameSearchIndex.contains("quentinold"))).contains(member.getId());
+
+        transactionTemplate.executeWithoutResult(status ->
+                em.find(Member.class, member.getId()).setUsername("quentinNew"));
+        assertThat(ids(usernameSearchIndex.contains("quentinold"))).doesNotContain(member.getId());
+        assertThat(ids(usernameSearchIndex.contains("tinnew"))).contains(member.getId());
+
+        memberRepository.deleteById(member.getId());
+        assertThat(ids(usernameSearchIndex.contains("quentin"))).doesNotContain(member.getId());
+    }
+
+    @Test
+    @DisplayName("호출한 쪽 트랜잭션에서 바꾸고 롤백한 username 은 색인되지 않는다")
+    void ignoresRolledBackChanges() {
+        Member member = save(new Member("ursulaKept", 10));
+        transactionTemplate.executeWithoutResult(status -> {
+            em.find(Member.class, member.getId()).setUsername("ursulaRolledBack");
+            em.flush();
+            assertThat(ids(usernameSearchIndex.contains("rolledback"))).isEmpty();
+            status.setRollbackOnly();
+        });
+
+        assertThat(ids(usernameSearchIndex.contains("rolledback"))).isEmpty();
+        assertThat(ids(usernameSearchIndex.contains("ursulakept"))).containsExactly(member.getId());
+    }
+
+    @Test
+    @DisplayName("피드 없이 넣은 시드 데이터는 다시 적재해서 찾는다")
+    void reloadAfterSeed() {
+        usernameSearchIndex.contains("warmup");
+        SeedDataGenerator.Result seed = seedDataGenerator.generate();
+        try {
+            List<UsernameMatch> matches = usernameSearchIndex.contains("user");
+            assertThat(ids(matches)).contains(seed.getFirstMemberId());
+        } finally {
+            transactionTemplate.executeWithoutResult(status -> {
+                em.createQuery("delete from Member m where m.id between :from and :to")
+                        .setParameter("from", seed.getFirstMemberId())
+                        .setParameter("to", seed.getFirstMemberId() + seed.getMembers() - 1)
+                        .executeUpdate();
+                em.createQuery("delete from Team t where t.id between :from and :to")
+                        .setParameter("from", seed.getFirstMemberId() - seed.getTeams())
+                        .setParameter("to", seed.getFirstMemberId() - 1)
+                        .executeUpdate();
+            });
+        }
+    }
+
+    private Member save(Member member) {
+        Member saved = memberRepository.save(member);
+        members.add(saved);
+        return saved;
+    }
+
+    private static List<Long> ids(List<UsernameMatch> matches) {
+        return matches.stream().map(UsernameMatch::getMemberId).collect(Collectors.toList());
+    }
+}
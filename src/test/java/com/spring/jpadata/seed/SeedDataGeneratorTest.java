@@ -0,0 +1,75 @@
+package com.spring.jpadata.seed;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "jpadata.seed.team-count=3",
+        "jpadata.seed.members-per-team=200",
+        "jpadata.seed.batch-size=64",
+        "jpadata.seed.rows-per-transaction=250"})
+@Transactional
+class SeedDataGeneratorTest {
+
+    @Autowired
+    SeedDataGenerator seedDataGenerator;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("같은 seed 면 같은 데이터가 만들어진다")
+    void deterministic() {
+        SeedDataGenerator.Result first = seedDataGenerator.generate();
+        SeedDataGenerator.Result second = seedDataGenerator.generate();
+
+        assertThat(first.getMembers()).isEqualTo(600);
+        List<Map<String, Object>> firstRows = rows(first);
+        List<Map<String, Object>> secondRows = rows(second);
+        assertThat(firstRows).hasSize(600);
+        assertThat(firstRows).isEqualTo(secondRows);
+    }
+
+    @Test
+    @DisplayName("팀별 인원, 나이 범위")
+    void distribution() {
+        SeedDataGenerator.Result result = seedDataGenerator.generate();
+
+        List<Long> perTeam = jdbcTemplate.queryForList(
+                "select count(*) from member where member_id >= ? group by team_id", Long.class,
+                result.getFirstMemberId());
+        assertThat(perTeam).containsExactly(200L, 200L, 200L);
+
+        Map<String, Object> ages = jdbcTemplate.queryForMap(
+                "select min(age) min_age, max(age) max_age, avg(age) avg_age from member where member_id >= ?",
+                result.getFirstMemberId());
+        assertThat((Integer) ages.get("MIN_AGE")).isGreaterThanOrEqualTo(10);
+        assertThat((Integer) ages.get("MAX_AGE")).isLessThanOrEqualTo(80);
+        assertThat(((Number) ages.get("AVG_AGE")).doubleValue()).isLessThan(45); // 어린 쪽으로 치우친다
+    }
+
+    @Test
+    @DisplayName("예약한 id 구간 뒤부터 시퀀스가 이어지고 증가폭은 1 로 돌아온다")
+    void reservesIdRange() {
+        SeedDataGenerator.Result result = seedDataGenerator.generate();
+
+        Long next = jdbcTemplate.queryForObject("select next value for hibernate_sequence", Long.class);
+        Long afterNext = jdbcTemplate.queryForObject("select next value for hibernate_sequence", Long.class);
+        assertThat(next).isGreaterThanOrEqualTo(result.getFirstMemberId() + result.getMembers());
+        assertThat(afterNext).isEqualTo(next + 1);
+    }
+
+    private List<Map<String, Object>> rows(SeedDataGenerator.Result result) {
+        return jdbcTemplate.queryForList(
+                "select username, age from member where member_id between ? and ? order by member_id",
+                result.getFirstMemberId(), result.getFirstMemberId() + result.getMembers() - 1);
+    }
+}
@@ -0,0 +1,162 @@
+package com.spring.jpadata.stats;
+
+import com.spring.jpadata.dto.TeamStatsDto;
+import com.spring.jpadata.entity.Member;
+import com.spring.jpadata.entity.Team;
+import com.spring.jpadata.repository.jpadata.MemberRepository;
+import com.spring.jpadata.repository.jpadata.TeamRepository;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+//요약은 커밋된 변경만 따라가므로 테스트 트랜잭션 없이 커밋하고 끝나면 지운다
+@SpringBootTest(properties = "jpadata.outbox.gap-grace-ms=0")
+class TeamStatsServiceTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    TeamStatsService teamStatsService;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    List<Member> members = new ArrayList<>();
+    List<Team> teams = new ArrayList<>();
+
+    //앞 테스트의 정리 (벌크 delete) 는 피드를 타지 않는다
+    @BeforeEach
+    void before() {
+        teamStatsService.verify();
+    }
+
+    @AfterEach
+    void after() {
+        memberRepository.deleteAllInBatch(members);
+        teamRepository.deleteAllInBatch(teams);
+    }
+
+    @Test
+    @DisplayName("insert / changeTeam / bulkAgePlus / delete 를 따라가고 전체 재계산과 일치한다")
+    void incrementalMatchesRecompute() {
+        //bulkAgePlus 는 커밋되므로 다른 테스트 데이터가 걸리지 않는 나이로
+        Team statsA = team("statsA");
+        Team statsB = team("statsB");
+        Member m1 = member(new Member("stats1", 115, statsA));
+        member(new Member("stats2", 122, statsA));
+        Member m3 = member(new Member("stats3", 138, statsA));
+
+        TeamStatsDto a = stats(statsA);
+        assertThat(a.getMemberCount()).isEqualTo(3);
+        assertThat(a.getAgeSum()).isEqualTo(375);
+        assertThat(a.getAgeAvg()).isEqualTo(125.0);
+        assertThat(a.getAgeMin()).isEqualTo(115);
+        assertThat(a.getAgeMax()).isEqualTo(138);
+        assertThat(a.getAgeHistogram()).containsExactly(entry(110, 1L), entry(120, 1L), entry(130, 1L));
+
+        transactionTemplate.executeWithoutResult(status ->
+                em.find(Member.class, m3.getId()).changeTeam(em.find(Team.class, statsB.getId())));
+        memberRepository.deleteById(m1.getId());
+        memberRepository.bulkAgePlus(130); // statsB 의 138 -> 139
+
+        a = stats(statsA);
+        TeamStatsDto b = stats(statsB);
+        assertThat(a.getMemberCount()).isEqualTo(1);
+        assertThat(a.getAgeMin()).isEqualTo(122);
+        assertThat(b.getTeamName()).isEqualTo("statsB");
+        assertThat(b.getMemberCount()).isEqualTo(1);
+        assertThat(b.getAgeMax()).isEqualTo(139);
+
+        assertThat(teamStatsService.verify()).isTrue();
+    }
+
+    @Test
+    @DisplayName("호출한 쪽 트랜잭션에서 바꾸고 롤백한 변경은 요약에 들어가지 않는다")
+    void ignoresRolledBackChanges() {
+        Team team = team("statsRollback");
+        member(new Member("rollback1", 40, team));
+        assertThat(stats(team).getMemberCount()).isEqualTo(1);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            memberRepository.save(new Member("rollback2", 50, em.find(Team.class, team.getId())));
+            em.flush();
+            assertThat(stats(team).getMemberCount()).isEqualTo(1);
+            status.setRollbackOnly();
+        });
+
+        assertThat(stats(team).getMemberCount()).isEqualTo(1);
+        assertThat(teamStatsService.verify()).isTrue();
+    }
+
+    @Test
+    @DisplayName("이전 값을 모르는 UPDATE (준영속 엔티티 session.update) 는 두 번 세지 않고 전체 재계산한다")
+    void updateWithUnknownOldState() {
+        Team before = team("statsBefore");
+        Team after = team("statsAfter");
+        Member member = member(new Member("detached1", 40, before));
+        assertThat(stats(before).getMemberCount()).isEqualTo(1);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Member detached = memberRepository.findById(member.getId()).orElseThrow(AssertionError::new);
+            em.detach(detached);
+            detached.setAge(41);
+            detached.setTeam(em.getReference(Team.class, after.getId()));
+            em.unwrap(Session.class).update(detached);
+        });
+
+        assertThat(teamStatsService.getStats()).extracting("teamId").doesNotContain(before.getId());
+        assertThat(stats(after).getMemberCount()).isEqualTo(1);
+        assertThat(stats(after).getAgeMax()).isEqualTo(41);
+        assertThat(teamStatsService.verify()).isTrue();
+    }
+
+    @Test
+    @DisplayName("피드를 거치지 않은 변경은 verify 가 재계산으로 바로잡는다")
+    void verifyRepairsDrift() {
+        Team team = team("statsDrift");
+        member(new Member("drift1", 40, team));
+        teamStatsService.getStats();
+
+        //member_change 를 남기지 않는 쓰기
+        transactionTemplate.executeWithoutResult(status ->
+                em.createNativeQuery("update member set age = 41 where username = 'drift1'").executeUpdate());
+
+        assertThat(teamStatsService.verify()).isFalse();
+        assertThat(stats(team).getAgeMax()).isEqualTo(41);
+        assertThat(teamStatsService.verify()).isTrue();
+    }
+
+    private Team team(String name) {
+        Team team = teamRepository.save(new Team(name));
+        teams.add(team);
+        return team;
+    }
+
+    private Member member(Member member) {
+        Member saved = memberRepository.save(member);
+        members.add(saved);
+        return saved;
+    }
+
+    private TeamStatsDto stats(Team team) {
+        return teamStatsService.getStats().stream()
+                .filter(s -> s.getTeamId().equals(team.getId()))
+                .findFirst()
+                .orElseThrow(AssertionError::new);
+    }
+}
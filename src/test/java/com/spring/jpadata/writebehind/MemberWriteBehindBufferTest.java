@@ -0,0 +1,98 @@
+package com.spring.jpadata.writebehind;
+
+import com.spring.jpadata.entity.Member;
+import com.spring.jpadata.repository.jpadata.MemberRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//flush 는 별도 스레드/트랜잭션이라 테스트 트랜잭션을 쓰지 않고 직접 지운다
+@SpringBootTest(properties = {
+        "jpadata.write-behind.enabled=true",
+        "jpadata.write-behind.capacity=50",
+        "jpadata.write-behind.flush-size=1000",
+        "jpadata.write-behind.flush-interval-ms=300",
+        "jpadata.write-behind.offer-timeout-ms=0"})
+class MemberWriteBehindBufferTest {
+
+    @Autowired
+    MemberWriteBehindBuffer buffer;
+    @Autowired
+    MemberRepository memberRepository;
+
+    List<Member> saved = new ArrayList<>();
+
+    @AfterEach
+    void after() {
+        memberRepository.deleteAllInBatch(saved);
+    }
+
+    @Test
+    @DisplayName("같은 member 의 변경은 합쳐져서 한 번에 커밋되고 future 가 완료된다")
+    void coalescesPerMember() throws Exception {
+        Member member = save("wb-member", 0);
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int age = 1; age <= 100; age++) {
+            futures.add(buffer.submit(MemberUpdate.age(member.getId(), age)));
+        }
+        futures.add(buffer.submit(MemberUpdate.username(member.getId(), "wb-renamed")));
+        long coalescedBefore = buffer.getCoalesced();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+        assertThat(coalescedBefore).isGreaterThanOrEqualTo(100);
+        Member reloaded = memberRepository.findById(member.getId()).get();
+        assertThat(reloaded.getAge()).isEqualTo(100);
+        assertThat(reloaded.getUsername()).isEqualTo("wb-renamed");
+    }
+
+    @Test
+    @DisplayName("없는 member 는 그 future 만 실패한다")
+    void missingMemberFails() throws Exception {
+        Member member = save("wb-exists", 1);
+
+        CompletableFuture<Void> ok = buffer.submit(MemberUpdate.age(member.getId(), 2));
+        CompletableFuture<Void> missing = buffer.submit(MemberUpdate.age(-1L, 2));
+
+        ok.get(5, TimeUnit.SECONDS);
+        assertThatThrownBy(() -> missing.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(EntityNotFoundException.class);
+    }
+
+    @Test
+    @DisplayName("버퍼가 차면 기다리다가 거절한다 (같은 id 는 자리를 차지하지 않는다)")
+    void backPressure() throws Exception {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (long id = 1; id <= 50; id++) {
+            futures.add(buffer.submit(MemberUpdate.age(-id, 1)));
+        }
+        futures.add(buffer.submit(MemberUpdate.age(-1L, 2)));
+
+        assertThatThrownBy(() -> buffer.submit(MemberUpdate.age(-51L, 1)))
+                .isInstanceOf(RejectedExecutionException.class);
+
+        //flush 후에는 다시 받는다
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).handle((v, e) -> null).get(5, TimeUnit.SECONDS);
+        buffer.submit(MemberUpdate.age(-51L, 1)).handle((v, e) -> null).get(5, TimeUnit.SECONDS);
+    }
+
+    private Member save(String username, int age) {
+        Member member = memberRepository.save(new Member(username, age));
+        saved.add(member);
+        return member;
+    }
+}